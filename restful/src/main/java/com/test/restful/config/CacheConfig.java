@@ -1,11 +1,20 @@
 package com.test.restful.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.test.restful.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Cache configuration for the application
  */
@@ -13,11 +22,68 @@ import org.springframework.context.annotation.Configuration;
 @EnableCaching
 public class CacheConfig {
 
+    /**
+     * Cache region holding single users keyed by id
+     */
+    public static final String USERS = "users";
+
+    /**
+     * Cache region holding the snapshot of the full user list
+     */
+    public static final String USER_LIST = "userList";
+
+    /**
+     * Cache regions holding single users keyed by normalised username and email
+     */
+    public static final String USERS_BY_USERNAME = "usersByUsername";
+    public static final String USERS_BY_EMAIL = "usersByEmail";
+
     /**
      * Configure cache manager
+     *
+     * Every region is bounded by its own Caffeine spec from application.properties and records
+     * hit/miss/eviction statistics, which are published through the actuator metrics endpoint.
+     */
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${spring.cache.caffeine.spec}") String usersSpec,
+            @Value("${app.cache.user-list.spec}") String userListSpec,
+            @Value("${app.cache.user-lookup.spec}") String userLookupSpec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                // Regions holding single users keep the newest version on concurrent puts
+                return USER_LIST.equals(name)
+                        ? super.adaptCaffeineCache(name, cache)
+                        : new VersionedUserCache(name, cache, isAllowNullValues());
+            }
+        };
+        // Only the regions registered below exist
+        cacheManager.setCacheNames(Collections.emptyList());
+        cacheManager.registerCustomCache(USERS, Caffeine.from(usersSpec).recordStats().build());
+        cacheManager.registerCustomCache(USER_LIST, Caffeine.from(userListSpec).recordStats().build());
+        cacheManager.registerCustomCache(USERS_BY_USERNAME, Caffeine.from(userLookupSpec).recordStats().build());
+        cacheManager.registerCustomCache(USERS_BY_EMAIL, Caffeine.from(userLookupSpec).recordStats().build());
+        return cacheManager;
+    }
+
+    /**
+     * Coalesces concurrent loads of the same user by id on a miss of the {@value #USERS} region
+     */
+    @Bean
+    public SingleFlight<Long, Optional<User>> userLoads(MeterRegistry meterRegistry) {
+        SingleFlight<Long, Optional<User>> userLoads = new SingleFlight<>(USERS);
+        userLoads.bindTo(meterRegistry);
+        return userLoads;
+    }
+
+    /**
+     * Coalesces concurrent loads of the full user list on a miss of the {@value #USER_LIST} region
      */
     @Bean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("users");
+    public SingleFlight<Long, List<User>> userListLoads(MeterRegistry meterRegistry) {
+        SingleFlight<Long, List<User>> userListLoads = new SingleFlight<>(USER_LIST);
+        userListLoads.bindTo(meterRegistry);
+        return userListLoads;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,113 @@
+package com.test.restful.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Remembers successful username/password authentications for a bounded time, so stateless
+ * HTTP Basic requests do not pay for a BCrypt verification each.
+ *
+ * Entries are keyed by an HMAC-SHA256 of the username and password under a key generated at
+ * startup; neither the password nor an offline-checkable hash of it is kept in memory. Only
+ * successes are cached, so a wrong password always reaches the delegate. A changed password or
+ * disabled account takes effect once the entry expires.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final AuthenticationProvider delegate;
+    private final Cache<String, Authentication> authentications;
+    private final Mac prototype;
+
+    /**
+     * @param delegate Provider verifying the credentials on a cache miss
+     * @param spec Caffeine spec bounding the cache, e.g. {@code maximumSize=10000,expireAfterWrite=300s}
+     */
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, String spec) {
+        this.delegate = delegate;
+        this.authentications = Caffeine.from(spec).recordStats().build();
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        try {
+            this.prototype = Mac.getInstance(HMAC_ALGORITHM);
+            this.prototype.init(new SecretKeySpec(key, HMAC_ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    /**
+     * Publishes the cache's size, hits and misses under {@code cache.*} with {@code cache=authentications}
+     */
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, authentications, "authentications");
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!(authentication.getCredentials() instanceof String password)) {
+            return delegate.authenticate(authentication);
+        }
+
+        String key = key(authentication.getName(), password);
+        Authentication cached = authentications.getIfPresent(key);
+        if (cached != null) {
+            return copyOf(cached, authentication);
+        }
+
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            authentications.put(key, copyOf(result, authentication));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    /**
+     * Drops every remembered authentication, e.g. after credentials changed
+     */
+    public void invalidateAll() {
+        authentications.invalidateAll();
+    }
+
+    private String key(String username, String password) {
+        Mac mac;
+        try {
+            // Cloning the initialised prototype is cheaper than a new instance and Mac is not thread-safe
+            mac = (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("HMAC-SHA256 cannot be cloned", e);
+        }
+        mac.update(username.getBytes(StandardCharsets.UTF_8));
+        // Separator, so "ab" + "c" and "a" + "bc" differ
+        mac.update((byte) 0);
+        return Base64.getEncoder().encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // A fresh token without credentials: the caller's copy gets its credentials erased and
+    // request details attached, which must not leak into the cached one
+    private static Authentication copyOf(Authentication source, Authentication request) {
+        UsernamePasswordAuthenticationToken copy = UsernamePasswordAuthenticationToken.authenticated(
+                source.getPrincipal(), null, source.getAuthorities());
+        copy.setDetails(request.getDetails());
+        return copy;
+    }
+}
@@ -9,6 +9,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * Initializes sample data when the application starts
  */
@@ -46,8 +48,8 @@ public class DataInitializer implements CommandLineRunner {
         address1.setZipcode("92998-3874");
 
         GeoEntity geo1 = new GeoEntity();
-        geo1.setLat("-37.3159");
-        geo1.setLng("81.1496");
+        geo1.setLat(-37.3159);
+        geo1.setLng(81.1496);
         address1.setGeo(geo1);
 
         CompanyEntity company1 = new CompanyEntity();
@@ -57,7 +59,6 @@ public class DataInitializer implements CommandLineRunner {
 
         user1.setAddress(address1);
         user1.setCompany(company1);
-        userRepository.save(user1);
 
         // User 2
         UserEntity user2 = new UserEntity();
@@ -74,8 +75,8 @@ public class DataInitializer implements CommandLineRunner {
         address2.setZipcode("90566-7771");
 
         GeoEntity geo2 = new GeoEntity();
-        geo2.setLat("-43.9509");
-        geo2.setLng("-34.4618");
+        geo2.setLat(-43.9509);
+        geo2.setLng(-34.4618);
         address2.setGeo(geo2);
 
         CompanyEntity company2 = new CompanyEntity();
@@ -85,7 +86,6 @@ public class DataInitializer implements CommandLineRunner {
 
         user2.setAddress(address2);
         user2.setCompany(company2);
-        userRepository.save(user2);
 
         // User 3
         UserEntity user3 = new UserEntity();
@@ -102,8 +102,8 @@ public class DataInitializer implements CommandLineRunner {
         address3.setZipcode("59590-4157");
 
         GeoEntity geo3 = new GeoEntity();
-        geo3.setLat("-68.6102");
-        geo3.setLng("-47.0653");
+        geo3.setLat(-68.6102);
+        geo3.setLng(-47.0653);
         address3.setGeo(geo3);
 
         CompanyEntity company3 = new CompanyEntity();
@@ -113,6 +113,8 @@ public class DataInitializer implements CommandLineRunner {
 
         user3.setAddress(address3);
         user3.setCompany(company3);
-        userRepository.save(user3);
+
+        // Saved together so the inserts are sent as JDBC batches
+        userRepository.saveAll(List.of(user1, user2, user3));
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.test.restful.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Data source configuration for the application
+ */
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * Wraps the connection pool so a transaction checks out a connection on its first statement
+     * rather than when it begins
+     *
+     * Read-only transactions answered from a cache or an in-memory index then never hold a pooled
+     * connection. With virtual threads the pool is what bounds concurrent requests touching the
+     * database, and those requests would otherwise queue behind slow queries for a connection they
+     * do not use.
+     */
+    @Bean
+    public static BeanPostProcessor lazyConnectionDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof LazyConnectionDataSourceProxy)
+                        ? new LazyConnectionDataSourceProxy(dataSource)
+                        : bean;
+            }
+        };
+    }
+}
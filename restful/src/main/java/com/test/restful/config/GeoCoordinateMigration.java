@@ -0,0 +1,92 @@
+package com.test.restful.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves coordinates stored by earlier versions in the text columns {@code geo.lat} and {@code geo.lng}
+ * into the numeric {@code latitude} and {@code longitude} columns.
+ *
+ * Runs once the schema has been updated and before the application serves requests; it is a no-op
+ * when the text columns do not exist. The text columns are dropped after a clean migration and kept
+ * if any row could not be parsed, so no data is lost.
+ */
+@Component
+public class GeoCoordinateMigration {
+    private static final Logger logger = LoggerFactory.getLogger(GeoCoordinateMigration.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param entityManagerFactory Only depended on so the schema update has run first
+     */
+    @Autowired
+    public GeoCoordinateMigration(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        if (!hasColumn("geo", "lat") || !hasColumn("geo", "lng")) {
+            return;
+        }
+
+        logger.info("Migrating text coordinates of the geo table to numeric columns");
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        long[] counts = new long[2];
+        jdbcTemplate.query("select id, lat, lng from geo where latitude is null and longitude is null "
+                + "and (lat is not null or lng is not null)", rs -> {
+            long id = rs.getLong("id");
+            try {
+                batch.add(new Object[]{parse(rs.getString("lat")), parse(rs.getString("lng")), id});
+            } catch (NumberFormatException e) {
+                logger.warn("Geo {} has unparsable coordinates '{}', '{}'", id, rs.getString("lat"), rs.getString("lng"));
+                counts[1]++;
+                return;
+            }
+            if (batch.size() == BATCH_SIZE) {
+                counts[0] += flush(batch);
+            }
+        });
+        counts[0] += flush(batch);
+
+        if (counts[1] > 0) {
+            logger.warn("Migrated {} geo rows, kept the text columns because {} rows could not be parsed",
+                    counts[0], counts[1]);
+            return;
+        }
+        jdbcTemplate.execute("alter table geo drop column lat");
+        jdbcTemplate.execute("alter table geo drop column lng");
+        logger.info("Migrated {} geo rows and dropped the text coordinate columns", counts[0]);
+    }
+
+    private int flush(List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate("update geo set latitude = ?, longitude = ? where id = ?", batch);
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+
+    private boolean hasColumn(String table, String column) {
+        Integer count = jdbcTemplate.queryForObject("select count(*) from information_schema.columns "
+                + "where lower(table_name) = ? and lower(column_name) = ?", Integer.class, table, column);
+        return count != null && count > 0;
+    }
+
+    private static Double parse(String value) {
+        return value == null || value.isBlank() ? null : Double.valueOf(value.trim());
+    }
+}
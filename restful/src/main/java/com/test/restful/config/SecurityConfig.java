@@ -1,7 +1,11 @@
 package com.test.restful.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -30,6 +34,7 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/h2-console/**").permitAll()
                 .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/users/search/index/rebuild").hasRole("ADMIN")
                 .requestMatchers("/api/users/**").authenticated()
                 .anyRequest().authenticated()
             )
@@ -40,6 +45,21 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Authenticates HTTP Basic credentials against the user details, remembering successes so
+     * that repeated requests skip the BCrypt verification
+     */
+    @Bean
+    public CachingAuthenticationProvider authenticationProvider(
+            InMemoryUserDetailsManager userDetailsService, MeterRegistry meterRegistry,
+            @Value("${app.security.authentication-cache.spec}") String spec) {
+        DaoAuthenticationProvider delegate = new DaoAuthenticationProvider(passwordEncoder());
+        delegate.setUserDetailsService(userDetailsService);
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(delegate, spec);
+        provider.bindTo(meterRegistry);
+        return provider;
+    }
+
     /**
      * Configure in-memory user details
      */
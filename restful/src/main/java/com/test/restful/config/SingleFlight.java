@@ -0,0 +1,192 @@
+package com.test.restful.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the load, callers arriving
+ * while it is in flight wait for and share its result or exception instead of loading again.
+ *
+ * Nothing is remembered once a load completes; caching the result is up to the caller, which can
+ * have it stored only when no change forgot the load while it ran. Waiting
+ * parks on a future rather than holding a monitor, so callers on virtual threads are not pinned
+ * while a slow query runs. A loader must not load the same key of the same instance, it would
+ * wait for itself.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class SingleFlight<K, V> {
+
+    private final String name;
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder loaded = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param name Name of the cache region the loads fill, used as the {@code cache} metric tag
+     */
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the result of the load in flight for the key, running the loader when there is none
+     *
+     * @param key Key of the value
+     * @param loader Loads the value; runs on the calling thread
+     * @return The loaded value, shared by every caller coalesced into the same load
+     */
+    public V load(K key, Supplier<V> loader) {
+        return load(key, loader, value -> {
+        });
+    }
+
+    /**
+     * Like {@link #load(Object, Supplier)}, handing the loaded value to {@code store} unless the
+     * load was {@linkplain #forget forgotten} while it ran, in which case it may predate the change
+     * that forgot it and is only returned to the callers that shared it
+     *
+     * @param key Key of the value
+     * @param loader Loads the value; runs on the calling thread
+     * @param store Caches the value; runs on the calling thread before the waiting callers resume
+     * @return The loaded value, shared by every caller coalesced into the same load
+     */
+    public V load(K key, Supplier<V> loader, Consumer<V> store) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return join(existing);
+        }
+
+        loaded.increment();
+        try {
+            V value = loader.get();
+            if (inFlight.remove(key, flight)) {
+                store.accept(value);
+            }
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Like {@link #load(Object, Supplier, Consumer)} for several keys at once: keys with a load in
+     * flight share it, the others are loaded together by a single call of the loader
+     *
+     * @param keys Keys of the values, without duplicates
+     * @param loader Loads the values of the keys given to it, returning one for each; runs on the calling thread
+     * @param store Caches a loaded value, unless its key was forgotten while the loader ran
+     * @return The value of every key
+     */
+    public Map<K, V> loadAll(Collection<K> keys, Function<List<K>, Map<K, V>> loader, BiConsumer<K, V> store) {
+        Map<K, CompletableFuture<V>> owned = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> shared = new LinkedHashMap<>();
+        for (K key : keys) {
+            CompletableFuture<V> flight = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+            if (existing != null) {
+                coalesced.increment();
+                shared.put(key, existing);
+            } else {
+                owned.put(key, flight);
+            }
+        }
+
+        Map<K, V> values = new HashMap<>();
+        if (!owned.isEmpty()) {
+            loaded.add(owned.size());
+            try {
+                Map<K, V> loadedValues = loader.apply(List.copyOf(owned.keySet()));
+                owned.forEach((key, flight) -> {
+                    V value = loadedValues.get(key);
+                    if (inFlight.remove(key, flight)) {
+                        store.accept(key, value);
+                    }
+                    flight.complete(value);
+                    values.put(key, value);
+                });
+            } catch (RuntimeException | Error e) {
+                owned.values().forEach(flight -> flight.completeExceptionally(e));
+                throw e;
+            } finally {
+                owned.forEach(inFlight::remove);
+            }
+        }
+        // Only once the own loads completed, so callers sharing each other's keys cannot wait on each other
+        shared.forEach((key, flight) -> values.put(key, join(flight)));
+        return values;
+    }
+
+    /**
+     * Detaches the load in flight for the key, so callers arriving later start a new one; callers
+     * already waiting still receive its result
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    /**
+     * @return Number of loads run
+     */
+    public long loadCount() {
+        return loaded.sum();
+    }
+
+    /**
+     * @return Number of callers that shared a load run by another caller
+     */
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Publishes the counts under {@code cache.single.flight} with the {@code cache} tag and
+     * {@code result=loaded} or {@code result=coalesced}
+     */
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.single.flight", loaded, LongAdder::sum)
+                .tags("cache", name, "result", "loaded")
+                .description("Cache misses that ran a load")
+                .register(registry);
+        FunctionCounter.builder("cache.single.flight", coalesced, LongAdder::sum)
+                .tags("cache", name, "result", "coalesced")
+                .description("Cache misses that waited for a load already in flight for the same key")
+                .register(registry);
+    }
+
+    private static <V> V join(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.test.restful.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.test.restful.mapper.UserMapper;
+import com.test.restful.model.User;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Caffeine cache region holding users, where a put never replaces a newer version of the same user
+ * and never brings back a user evicted by a later change.
+ *
+ * Writes put the committed user once their transaction commits, while reads put whatever they
+ * loaded. A read that loaded a row before a write committed can finish after it; its older copy is
+ * then discarded instead of overwriting the newer one. When a change evicts instead, through
+ * {@link #evictBefore} or {@link #evictDeleted}, the key keeps a tombstone for a while that turns
+ * away such late puts of the user it evicted.
+ *
+ * Users are copied on the way in and out, so a caller changing the user it was given does not
+ * change the cached one.
+ */
+public class VersionedUserCache extends CaffeineCache {
+
+    // Long enough to outlast any read that loaded the row before it was evicted
+    private static final Duration TOMBSTONE_TTL = Duration.ofMinutes(1);
+    private static final long MAX_TOMBSTONES = 10_000;
+
+    private final Cache<Object, Tombstone> tombstones = Caffeine.newBuilder()
+            .expireAfterWrite(TOMBSTONE_TTL)
+            .maximumSize(MAX_TOMBSTONES)
+            .build();
+
+    public VersionedUserCache(String name, Cache<Object, Object> cache, boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object stored = toStoreValue(value);
+        // Under the key's lock, so an eviction cannot slip between the tombstone check and the put
+        getNativeCache().asMap().compute(key, (k, cached) -> {
+            Tombstone tombstone = tombstones.getIfPresent(k);
+            if (tombstone != null && tombstone.rejects(stored)) {
+                return cached;
+            }
+            return cached == null ? stored : newer(cached, stored);
+        });
+    }
+
+    /**
+     * Evicts the entry and, for a while, rejects puts of versions of the user older than the given one
+     *
+     * @param key Key of the entry
+     * @param userId ID of the user the change evicted the entry for
+     * @param version First version of the user that may be cached again
+     */
+    public void evictBefore(Object key, Long userId, long version) {
+        getNativeCache().asMap().compute(key, (k, cached) -> {
+            tombstones.asMap().merge(k, new Tombstone(userId, version), Tombstone::later);
+            return null;
+        });
+    }
+
+    /**
+     * Evicts the entry and, for a while, rejects every put of the deleted user
+     */
+    public void evictDeleted(Object key, Long userId) {
+        evictBefore(key, userId, Long.MAX_VALUE);
+    }
+
+    @Override
+    protected Object toStoreValue(Object userValue) {
+        return super.toStoreValue(userValue instanceof User user ? UserMapper.copy(user) : userValue);
+    }
+
+    @Override
+    protected Object fromStoreValue(Object storeValue) {
+        Object value = super.fromStoreValue(storeValue);
+        return value instanceof User user ? UserMapper.copy(user) : value;
+    }
+
+    private static Object newer(Object cached, Object candidate) {
+        if (cached instanceof User current && candidate instanceof User next
+                && Objects.equals(current.getId(), next.getId())
+                && current.getVersion() != null && next.getVersion() != null
+                && current.getVersion() > next.getVersion()) {
+            return cached;
+        }
+        return candidate;
+    }
+
+    /**
+     * @param userId User the entry was evicted for
+     * @param version First version of that user accepted again
+     */
+    private record Tombstone(Long userId, long version) {
+
+        boolean rejects(Object candidate) {
+            return candidate instanceof User user && Objects.equals(user.getId(), userId)
+                    && (user.getVersion() == null || user.getVersion() < version);
+        }
+
+        // A key taken over by another user keeps only the latest user's tombstone
+        static Tombstone later(Tombstone existing, Tombstone next) {
+            return Objects.equals(existing.userId, next.userId) && existing.version > next.version ? existing : next;
+        }
+    }
+}
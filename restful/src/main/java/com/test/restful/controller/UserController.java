@@ -1,8 +1,24 @@
 package com.test.restful.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.test.restful.exception.BadRequestException;
 import com.test.restful.exception.ResourceNotFoundException;
 import com.test.restful.model.ApiResponse;
+import com.test.restful.model.BulkDeleteResult;
+import com.test.restful.model.BulkImportResult;
+import com.test.restful.model.CursorPage;
 import com.test.restful.model.User;
+import com.test.restful.model.UserBatch;
+import com.test.restful.model.UserAvailability;
+import com.test.restful.model.UserDistance;
+import com.test.restful.model.UserField;
+import com.test.restful.model.UserSearchCriteria;
+import com.test.restful.model.UserSearchHit;
+import com.test.restful.service.UserExportService;
+import com.test.restful.service.UserImportService;
+import com.test.restful.service.UserSearchService;
+import com.test.restful.service.UserSpatialIndex;
+import com.test.restful.service.UserCursor;
 import com.test.restful.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,22 +26,35 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.hateoas.EntityModel;
-import org.springframework.hateoas.Link;
-import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * REST controller for managing users
@@ -35,12 +64,30 @@ import java.util.stream.Collectors;
 @Tag(name = "User Management", description = "APIs for managing users")
 public class UserController {
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_DELETE_SIZE = 1000;
+    private static final int MAX_BATCH_GET_SIZE = 1000;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
     
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final UserExportService userExportService;
+    private final UserSearchService userSearchService;
+    private final UserLinkAssembler userLinkAssembler;
+    private final Duration exportTimeout;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserImportService userImportService,
+                          UserExportService userExportService, UserSearchService userSearchService,
+                          UserLinkAssembler userLinkAssembler,
+                          @Value("${app.users.export.timeout:1h}") Duration exportTimeout) {
         this.userService = userService;
+        this.userImportService = userImportService;
+        this.userExportService = userExportService;
+        this.userSearchService = userSearchService;
+        this.userLinkAssembler = userLinkAssembler;
+        this.exportTimeout = exportTimeout;
     }
 
     /**
@@ -61,72 +108,465 @@ public class UserController {
         return ResponseEntity.ok(ApiResponse.success(users, "Users retrieved successfully"));
     }
 
+    /**
+     * Get selected fields of users with pagination
+     * 
+     * @param fields Comma separated fields to return, e.g. {@code username,email}
+     * @param pageable Pagination information
+     * @return Paginated list of users holding only the requested fields
+     */
+    @GetMapping(value = "/paginated", params = {"fields", "!cursor"})
+    @Operation(summary = "Get selected fields of users with pagination",
+            description = "Returns a paginated list of users; only the requested columns are queried")
+    public ResponseEntity<ApiResponse<Page<Map<String, Object>>>> getAllUsersPaginatedWithFields(
+            @Parameter(description = "Comma separated fields to return; the id is always included")
+            @RequestParam String fields,
+            @PageableDefault(size = 10, sort = "id") Pageable pageable) {
+
+        logger.info("Fetching paginated users with fields: {}, page: {}, size: {}",
+                fields, pageable.getPageNumber(), pageable.getPageSize());
+
+        Page<Map<String, Object>> users = userService.getAllUsers(UserField.parse(fields), pageable);
+        return ResponseEntity.ok(ApiResponse.success(users, "Users retrieved successfully"));
+    }
+
+    /**
+     * Get users with keyset pagination
+     * 
+     * @param cursor Continuation token from the previous page, empty for the first page
+     * @param size Page size
+     * @param count Whether to include the total number of users
+     * @return Page of users with the cursor of the next page
+     */
+    @GetMapping(value = "/paginated", params = "cursor")
+    @Operation(summary = "Get users with cursor pagination",
+            description = "Returns users after the given cursor; pages cost the same at any depth and skip the count unless requested")
+    public ResponseEntity<ApiResponse<CursorPage<User>>> getUsersByCursor(
+            @Parameter(description = "Cursor returned by the previous page, empty for the first page")
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean count) {
+
+        logger.info("Fetching users after cursor: {}, size: {}", cursor, size);
+
+        if (size < 1) {
+            throw new BadRequestException("Page size must be at least 1");
+        }
+
+        Slice<User> users = userService.getUsersAfter(UserCursor.decode(cursor), Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        String nextCursor = users.hasNext()
+                ? UserCursor.encode(users.getContent().get(users.getNumberOfElements() - 1).getId())
+                : null;
+        Long total = count ? userService.countUsers() : null;
+
+        CursorPage<User> page = new CursorPage<>(users.getContent(), users.getSize(), users.hasNext(), nextCursor, total);
+        return ResponseEntity.ok(ApiResponse.success(page, "Users retrieved successfully"));
+    }
+
+    /**
+     * Get selected fields of users with keyset pagination
+     * 
+     * @param cursor Continuation token from the previous page, empty for the first page
+     * @param fields Comma separated fields to return
+     * @param size Page size
+     * @param count Whether to include the total number of users
+     * @return Page of users holding only the requested fields, with the cursor of the next page
+     */
+    @GetMapping(value = "/paginated", params = {"cursor", "fields"})
+    @Operation(summary = "Get selected fields of users with cursor pagination",
+            description = "Returns users after the given cursor; only the requested columns are queried")
+    public ResponseEntity<ApiResponse<CursorPage<Map<String, Object>>>> getUsersByCursorWithFields(
+            @RequestParam String cursor,
+            @Parameter(description = "Comma separated fields to return; the id is always included")
+            @RequestParam String fields,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean count) {
+
+        logger.info("Fetching users after cursor: {}, fields: {}, size: {}", cursor, fields, size);
+
+        if (size < 1) {
+            throw new BadRequestException("Page size must be at least 1");
+        }
+
+        Slice<Map<String, Object>> users = userService.getUsersAfter(
+                UserCursor.decode(cursor), UserField.parse(fields), Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        String nextCursor = users.hasNext()
+                ? UserCursor.encode((Long) users.getContent().get(users.getNumberOfElements() - 1).get("id"))
+                : null;
+        Long total = count ? userService.countUsers() : null;
+
+        CursorPage<Map<String, Object>> page =
+                new CursorPage<>(users.getContent(), users.getSize(), users.hasNext(), nextCursor, total);
+        return ResponseEntity.ok(ApiResponse.success(page, "Users retrieved successfully"));
+    }
+
     /**
      * Get all users
      * 
-     * @return List of all users
+     * @param accept Accept header, selecting the representation with or without links
+     * @param webRequest Request, used to evaluate If-None-Match
+     * @param response Response, given the Vary header before a 304 may be written
+     * @return List of all users, or 304 if the client's copy is current
      */
     @GetMapping
-    @Operation(summary = "Get all users", description = "Returns a list of all users")
-    public ResponseEntity<ApiResponse<List<EntityModel<User>>>> getAllUsers() {
+    @Operation(summary = "Get all users",
+            description = "Returns a list of all users; send Accept: application/json;profile=\"plain\" to omit links. "
+                    + "Supports conditional requests through the collection ETag")
+    public ResponseEntity<ApiResponse<List<?>>> getAllUsers(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest, HttpServletResponse response) {
         logger.info("Fetching all users");
-        
+
+        // Both representations share the URL, so caches must key them by Accept, 304s included
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        boolean hypermedia = userLinkAssembler.wantsHypermedia(accept);
+
+        // The revision kept next to the list snapshot answers a match without loading any user. A
+        // change committing between the two reads only makes the tag older than the body, so clients
+        // revalidate once more. No Last-Modified: no modification time moves forward on deletes
+        if (webRequest.checkNotModified(UserETags.forCollection(userService.getUsersRevision(), hypermedia))) {
+            return null;
+        }
         List<User> users = userService.getAllUsers();
         
+        if (!hypermedia) {
+            return ResponseEntity.ok(ApiResponse.success(users, "Users retrieved successfully"));
+        }
+
         // Add HATEOAS links to each user
-        List<EntityModel<User>> userModels = users.stream()
-                .map(user -> {
-                    EntityModel<User> userModel = EntityModel.of(user);
-                    Link selfLink = WebMvcLinkBuilder.linkTo(
-                            WebMvcLinkBuilder.methodOn(UserController.class).getUserById(user.getId()))
-                            .withSelfRel();
-                    userModel.add(selfLink);
-                    return userModel;
-                })
-                .collect(Collectors.toList());
+        List<EntityModel<User>> userModels = userLinkAssembler.toModels(users);
         
         return ResponseEntity.ok(ApiResponse.success(userModels, "Users retrieved successfully"));
     }
 
+    /**
+     * Get selected fields of all users
+     * 
+     * @param fields Comma separated fields to return, e.g. {@code username,email}
+     * @return List of all users holding only the requested fields
+     */
+    @GetMapping(params = "fields")
+    @Operation(summary = "Get selected fields of all users",
+            description = "Returns all users; only the requested columns are queried and no links are added")
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getAllUsersWithFields(
+            @Parameter(description = "Comma separated fields to return; the id is always included")
+            @RequestParam String fields) {
+        logger.info("Fetching all users with fields: {}", fields);
+
+        List<Map<String, Object>> users = userService.getAllUsers(UserField.parse(fields));
+        return ResponseEntity.ok(ApiResponse.success(users, "Users retrieved successfully"));
+    }
+
+    /**
+     * Search users
+     * 
+     * @param city City of the user's address, matched exactly
+     * @param company Name of the user's company, matched exactly
+     * @param name Prefix of the user's name
+     * @param username Prefix of the username, ignoring case
+     * @param pageable Pagination information
+     * @return Page of users matching all given filters
+     */
+    @GetMapping("/search")
+    @Operation(summary = "Search users",
+            description = "Returns a page of users matching all given filters; each filter is answered from an index")
+    public ResponseEntity<ApiResponse<Page<User>>> searchUsers(
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String company,
+            @Parameter(description = "Prefix of the user's name") @RequestParam(required = false) String name,
+            @Parameter(description = "Prefix of the username, ignoring case") @RequestParam(required = false) String username,
+            @PageableDefault(size = 10, sort = "id") Pageable pageable) {
+
+        UserSearchCriteria criteria = new UserSearchCriteria();
+        criteria.setCity(city);
+        criteria.setCompany(company);
+        criteria.setNamePrefix(name);
+        criteria.setUsernamePrefix(username);
+
+        logger.info("Searching users with city: {}, company: {}, name: {}, username: {}, page: {}, size: {}",
+                city, company, name, username, pageable.getPageNumber(), pageable.getPageSize());
+
+        Page<User> users = userService.searchUsers(criteria, pageable);
+        return ResponseEntity.ok(ApiResponse.success(users, "Users retrieved successfully"));
+    }
+
+    /**
+     * Full-text search of users
+     * 
+     * @param q Free text matched against name, username, company catch phrase and company bs
+     * @param limit Maximum number of results
+     * @return Matching users, most relevant first
+     */
+    @GetMapping(value = "/search", params = "q")
+    @Operation(summary = "Full-text search of users",
+            description = "Ranks users by the words of q found in their name, username, company catch phrase "
+                    + "and company bs; words also match as prefixes. Answered from an in-memory index")
+    public ResponseEntity<ApiResponse<List<UserSearchHit>>> searchUsersByText(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        logger.info("Searching users for: {}, limit: {}", q, limit);
+
+        if (limit < 1) {
+            throw new BadRequestException("Limit must be at least 1");
+        }
+
+        List<UserSearchHit> hits = userSearchService.search(q, Math.min(limit, MAX_SEARCH_RESULTS));
+        return ResponseEntity.ok(ApiResponse.success(hits, "Users retrieved successfully"));
+    }
+
+    /**
+     * Find users near a point
+     * 
+     * @param lat Latitude in decimal degrees
+     * @param lng Longitude in decimal degrees
+     * @param radiusKm Radius in kilometres
+     * @param limit Maximum number of results
+     * @return The nearest users within the radius, nearest first
+     */
+    @GetMapping("/near")
+    @Operation(summary = "Find users near a point",
+            description = "Returns the users whose address lies within radiusKm of lat/lng, nearest first, "
+                    + "with their great-circle distance. Answered from an in-memory grid index")
+    public ResponseEntity<ApiResponse<List<UserDistance>>> findUsersNear(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "10") double radiusKm,
+            @RequestParam(defaultValue = "10") int limit) {
+        logger.info("Finding users within {} km of {}, {}, limit: {}", radiusKm, lat, lng, limit);
+
+        if (!(lat >= -90 && lat <= 90) || !(lng >= -180 && lng <= 180)) {
+            throw new BadRequestException("Latitude must be between -90 and 90 and longitude between -180 and 180");
+        }
+        if (!(radiusKm > 0 && radiusKm <= UserSpatialIndex.MAX_RADIUS_KM)) {
+            throw new BadRequestException("Radius must be greater than 0 and at most "
+                    + Math.round(UserSpatialIndex.MAX_RADIUS_KM) + " km");
+        }
+        if (limit < 1) {
+            throw new BadRequestException("Limit must be at least 1");
+        }
+
+        List<UserDistance> users = userSearchService.findNear(lat, lng, radiusKm, Math.min(limit, MAX_SEARCH_RESULTS));
+        return ResponseEntity.ok(ApiResponse.success(users, "Users retrieved successfully"));
+    }
+
+    /**
+     * Rebuild the full-text search index
+     * 
+     * @return Success message with the number of users indexed
+     */
+    @PostMapping("/search/index/rebuild")
+    @Operation(summary = "Rebuild the search index",
+            description = "Rebuilds the full-text index from the database; searches keep using the old index meanwhile")
+    public ResponseEntity<ApiResponse<Void>> rebuildSearchIndex() {
+        logger.info("Rebuilding user search index");
+
+        int indexed = userSearchService.rebuildIndex();
+        return ResponseEntity.ok(ApiResponse.success(null, "Search index rebuilt with " + indexed + " users"));
+    }
+
+    /**
+     * Check whether a username and/or email can still be registered
+     * 
+     * @param username Username to check
+     * @param email Email to check
+     * @return Availability of the given values
+     */
+    @GetMapping("/availability")
+    @Operation(summary = "Check username/email availability",
+            description = "Values that were never registered are answered from memory without a database query")
+    public ResponseEntity<ApiResponse<UserAvailability>> checkAvailability(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email) {
+        logger.info("Checking availability of username: {}, email: {}", username, email);
+
+        if (username == null && email == null) {
+            throw new BadRequestException("Either username or email is required");
+        }
+
+        UserAvailability availability = new UserAvailability();
+        if (username != null) {
+            availability.setUsername(username);
+            availability.setUsernameAvailable(!userService.isUsernameTaken(username));
+        }
+        if (email != null) {
+            availability.setEmail(email);
+            availability.setEmailAvailable(!userService.isEmailTaken(email));
+        }
+        return ResponseEntity.ok(ApiResponse.success(availability, "Availability checked successfully"));
+    }
+
+    /**
+     * Export all users
+     * 
+     * @param webRequest Request, whose async timeout is raised to the export timeout
+     * @return Stream of users, one JSON object per line
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all users",
+            description = "Streams every user as newline-delimited JSON, reading through a database cursor")
+    public ResponseEntity<StreamingResponseBody> exportUsers(NativeWebRequest webRequest) {
+        logger.info("Exporting all users");
+
+        // The stream outlives the container's default async timeout (30 s on Tomcat) on large tables
+        WebAsyncUtils.getAsyncManager(webRequest).getAsyncWebRequest().setTimeout(exportTimeout.toMillis());
+
+        StreamingResponseBody body = userExportService::exportUsers;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     /**
      * Get user by ID
      * 
      * @param userId User ID
-     * @return User details
+     * @param webRequest Request, used to evaluate If-None-Match and If-Modified-Since
+     * @return User details, or 304 if the client's copy is current
      */
     @GetMapping("/{userId}")
-    @Operation(summary = "Get user by ID", description = "Returns a user by ID")
+    @Operation(summary = "Get user by ID", description = "Returns a user by ID; supports conditional requests through its ETag")
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "User found",
                 content = @Content(schema = @Schema(implementation = User.class))),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "304", description = "User not modified"),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "User not found")
     })
     public ResponseEntity<ApiResponse<EntityModel<User>>> getUserById(
-            @Parameter(description = "ID of the user to retrieve") @PathVariable Long userId) {
+            @Parameter(description = "ID of the user to retrieve") @PathVariable Long userId,
+            WebRequest webRequest) {
         
         logger.info("Fetching user with ID: {}", userId);
-        
+
         User user = userService.getUserById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+
+        // Tags come from the user sent, cached or not, so they always describe this body; on a
+        // match it is not assembled or serialised
+        if (webRequest.checkNotModified(UserETags.forUser(user.getVersion()),
+                UserETags.lastModified(user.getLastModified()))) {
+            return null;
+        }
         
-        // Add HATEOAS links
-        EntityModel<User> userModel = EntityModel.of(user);
-        
-        // Self link
-        Link selfLink = WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(UserController.class).getUserById(userId))
-                .withSelfRel();
-        
-        // All users link
-        Link allUsersLink = WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(UserController.class).getAllUsers())
-                .withRel("all-users");
-        
-        userModel.add(selfLink, allUsersLink);
+        // Add HATEOAS links: self and all users
+        EntityModel<User> userModel = userLinkAssembler.toDetailedModel(user);
         
+        // ETag and Last-Modified were already added to the response by checkNotModified
         return ResponseEntity.ok(ApiResponse.success(userModel, "User retrieved successfully"));
     }
 
+    /**
+     * Get several users by ID
+     * 
+     * @param accept Accept header, selecting the representation with or without links
+     * @param ids User IDs
+     * @return Users found, in request order, and IDs that did not exist
+     */
+    @GetMapping("/batch")
+    @Operation(summary = "Get several users by ID",
+            description = "Answers cached users from the cache and loads the others with one query; "
+                    + "send Accept: application/json;profile=\"plain\" to omit links")
+    public ResponseEntity<ApiResponse<UserBatch<?>>> getUsersByIds(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @Parameter(description = "Comma separated IDs of the users to retrieve") @RequestParam List<Long> ids) {
+        return usersByIds(ids, accept);
+    }
+
+    /**
+     * Get several users by ID, for ID sets too large for a query string
+     * 
+     * @param accept Accept header, selecting the representation with or without links
+     * @param ids User IDs as a JSON array
+     * @return Users found, in request order, and IDs that did not exist
+     */
+    @PostMapping("/batch")
+    @Operation(summary = "Get several users by ID",
+            description = "Same as GET /api/users/batch with the IDs as a JSON array in the body")
+    public ResponseEntity<ApiResponse<UserBatch<?>>> getUsersByIdsInBody(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestBody List<Long> ids) {
+        return usersByIds(ids, accept);
+    }
+
+    private ResponseEntity<ApiResponse<UserBatch<?>>> usersByIds(List<Long> ids, String accept) {
+        logger.info("Fetching {} users by ID", ids.size());
+
+        LinkedHashSet<Long> requested = new LinkedHashSet<>(ids);
+        if (requested.contains(null)) {
+            throw new BadRequestException("IDs must not be empty");
+        }
+        if (requested.isEmpty() || requested.size() > MAX_BATCH_GET_SIZE) {
+            throw new BadRequestException("Between 1 and " + MAX_BATCH_GET_SIZE + " ids are required");
+        }
+
+        UserBatch<User> batch = userService.getUsersByIds(requested);
+        String message = String.format("Retrieved %d of %d users", batch.getUsers().size(), requested.size());
+        // The representation depends on Accept, so shared caches must key it by Accept
+        if (!userLinkAssembler.wantsHypermedia(accept)) {
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(ApiResponse.success(batch, message));
+        }
+
+        // Same self links as the single user and list endpoints
+        UserBatch<EntityModel<User>> models = new UserBatch<>(userLinkAssembler.toModels(batch.getUsers()), batch.getNotFound());
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(ApiResponse.success(models, message));
+    }
+
+    /**
+     * Get selected fields of a user by ID
+     * 
+     * @param userId User ID
+     * @param fields Comma separated fields to return
+     * @return User holding only the requested fields
+     */
+    @GetMapping(value = "/{userId}", params = "fields")
+    @Operation(summary = "Get selected fields of a user by ID",
+            description = "Returns a user by ID; only the requested columns are queried and no links are added")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getUserByIdWithFields(
+            @Parameter(description = "ID of the user to retrieve") @PathVariable Long userId,
+            @Parameter(description = "Comma separated fields to return; the id is always included")
+            @RequestParam String fields) {
+
+        logger.info("Fetching user with ID: {} and fields: {}", userId, fields);
+
+        Map<String, Object> user = userService.getUserById(userId, UserField.parse(fields))
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+
+        return ResponseEntity.ok(ApiResponse.success(user, "User retrieved successfully"));
+    }
+
+    /**
+     * Get user by username
+     * 
+     * @param username Username, matched ignoring case
+     * @return User details
+     */
+    @GetMapping("/by-username/{username}")
+    @Operation(summary = "Get user by username", description = "Returns the user with the given username, ignoring case")
+    public ResponseEntity<ApiResponse<EntityModel<User>>> getUserByUsername(@PathVariable String username) {
+        logger.info("Fetching user with username: {}", username);
+
+        User user = userService.getUserByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
+
+        return ResponseEntity.ok(ApiResponse.success(userLinkAssembler.toDetailedModel(user), "User retrieved successfully"));
+    }
+
+    /**
+     * Get user by email
+     * 
+     * @param email Email, matched ignoring case
+     * @return User details
+     */
+    @GetMapping("/by-email/{email}")
+    @Operation(summary = "Get user by email", description = "Returns the user with the given email, ignoring case")
+    public ResponseEntity<ApiResponse<EntityModel<User>>> getUserByEmail(@PathVariable String email) {
+        logger.info("Fetching user with email: {}", email);
+
+        User user = userService.getUserByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + email));
+
+        return ResponseEntity.ok(ApiResponse.success(userLinkAssembler.toDetailedModel(user), "User retrieved successfully"));
+    }
+
     /**
      * Create a new user
      * 
@@ -134,7 +574,8 @@ public class UserController {
      * @return Created user
      */
     @PostMapping
-    @Operation(summary = "Create a new user", description = "Creates a new user and returns the created user")
+    @Operation(summary = "Create a new user", description = "Creates a new user and returns the created user; "
+            + "usernames and emails are unique ignoring case")
     public ResponseEntity<ApiResponse<EntityModel<User>>> createUser(
             @Valid @RequestBody User user) {
         
@@ -143,46 +584,100 @@ public class UserController {
         User createdUser = userService.createUser(user);
         
         // Add HATEOAS links
-        EntityModel<User> userModel = EntityModel.of(createdUser);
-        
-        Link selfLink = WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(UserController.class).getUserById(createdUser.getId()))
-                .withSelfRel();
-        
-        userModel.add(selfLink);
+        EntityModel<User> userModel = userLinkAssembler.toModel(createdUser);
         
         return new ResponseEntity<>(
                 ApiResponse.success(userModel, "User created successfully"),
                 HttpStatus.CREATED);
     }
 
+    /**
+     * Import users in bulk
+     * 
+     * @param body JSON array or newline-delimited JSON of users, streamed without buffering
+     * @return Import counts and per-record errors
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Import users in bulk",
+            description = "Streams a JSON array or NDJSON body, validates each record and commits in chunks")
+    public ResponseEntity<ApiResponse<BulkImportResult>> importUsers(InputStream body) throws IOException {
+        logger.info("Importing users in bulk");
+
+        BulkImportResult result = userImportService.importUsers(body);
+
+        String message = String.format("Imported %d of %d users", result.getImported(), result.getReceived());
+        return ResponseEntity.ok(ApiResponse.success(result, message));
+    }
+
     /**
      * Update an existing user
      * 
      * @param userId User ID
+     * @param ifMatch Optional ETags of the versions the change may be based on
      * @param userDetails Updated user details
-     * @return Updated user
+     * @return Updated user with its new ETag
      */
     @PutMapping("/{userId}")
-    @Operation(summary = "Update a user", description = "Updates an existing user and returns the updated user")
+    @Operation(summary = "Update a user",
+            description = "Updates an existing user and returns the updated user; send If-Match with the user's ETag "
+                    + "to reject the update if someone else changed the user first")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "User updated"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "User not found"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409",
+                description = "Username or email taken, or a concurrent update won"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "412",
+                description = "If-Match does not match the current version")
+    })
     public ResponseEntity<ApiResponse<EntityModel<User>>> updateUser(
             @PathVariable Long userId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody User userDetails) {
         
         logger.info("Updating user with ID: {}", userId);
         
-        User updatedUser = userService.updateUser(userId, userDetails);
+        User updatedUser = userService.updateUser(userId, userDetails, UserETags.expectedVersions(ifMatch));
         
         // Add HATEOAS links
-        EntityModel<User> userModel = EntityModel.of(updatedUser);
-        
-        Link selfLink = WebMvcLinkBuilder.linkTo(
-                WebMvcLinkBuilder.methodOn(UserController.class).getUserById(userId))
-                .withSelfRel();
+        EntityModel<User> userModel = userLinkAssembler.toModel(updatedUser);
         
-        userModel.add(selfLink);
-        
-        return ResponseEntity.ok(ApiResponse.success(userModel, "User updated successfully"));
+        return ResponseEntity.ok()
+                .eTag(UserETags.forUser(updatedUser.getVersion()))
+                .body(ApiResponse.success(userModel, "User updated successfully"));
+    }
+
+    /**
+     * Partially update a user
+     * 
+     * @param userId User ID
+     * @param ifMatch Optional ETags of the versions the change may be based on
+     * @param patch JSON Merge Patch with the fields to change; null removes a field
+     * @return Patched user with its new ETag
+     */
+    @PatchMapping(value = "/{userId}", consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Partially update a user",
+            description = "Applies a JSON Merge Patch (RFC 7396); only the supplied fields are written")
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "User patched"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid patch or patched user"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "User not found"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409",
+                description = "Username or email taken, or a concurrent update won"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "412",
+                description = "If-Match does not match the current version")
+    })
+    public ResponseEntity<ApiResponse<EntityModel<User>>> patchUser(
+            @PathVariable Long userId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody JsonNode patch) {
+
+        logger.info("Patching user with ID: {}", userId);
+
+        User patchedUser = userService.patchUser(userId, patch, UserETags.expectedVersions(ifMatch));
+
+        return ResponseEntity.ok()
+                .eTag(UserETags.forUser(patchedUser.getVersion()))
+                .body(ApiResponse.success(userLinkAssembler.toModel(patchedUser), "User updated successfully"));
     }
 
     /**
@@ -204,4 +699,30 @@ public class UserController {
 
         return ResponseEntity.ok(ApiResponse.success(null, "User deleted successfully"));
     }
-}
\ No newline at end of file
+
+    /**
+     * Delete several users
+     * 
+     * @param ids User IDs
+     * @return Deleted IDs and IDs that did not exist
+     */
+    @DeleteMapping(params = "ids")
+    @Operation(summary = "Delete several users",
+            description = "Deletes the given users and their address, geo and company in one transaction")
+    public ResponseEntity<ApiResponse<BulkDeleteResult>> deleteUsers(
+            @Parameter(description = "Comma separated IDs of the users to delete") @RequestParam List<Long> ids) {
+        logger.info("Deleting {} users", ids.size());
+
+        LinkedHashSet<Long> requested = new LinkedHashSet<>(ids);
+        if (requested.isEmpty() || requested.size() > MAX_BATCH_DELETE_SIZE) {
+            throw new BadRequestException("Between 1 and " + MAX_BATCH_DELETE_SIZE + " ids are required");
+        }
+
+        List<Long> deleted = userService.deleteUsers(requested);
+        Set<Long> deletedIds = new HashSet<>(deleted);
+        List<Long> notFound = requested.stream().filter(id -> !deletedIds.contains(id)).toList();
+
+        String message = String.format("Deleted %d of %d users", deleted.size(), requested.size());
+        return ResponseEntity.ok(ApiResponse.success(new BulkDeleteResult(deleted, notFound), message));
+    }
+}
@@ -0,0 +1,74 @@
+package com.test.restful.controller;
+
+import com.test.restful.exception.PreconditionFailedException;
+
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Strong entity tags of user resources, derived from revisions rather than from response bodies
+ */
+final class UserETags {
+
+    // One entry of an entity tag list: optional weak prefix and the quoted opaque tag
+    private static final Pattern ENTITY_TAG = Pattern.compile("(W/)?\"([^\"]*)\"");
+
+    private UserETags() {
+    }
+
+    /**
+     * @param version Version of the user
+     * @return Quoted entity tag of a single user
+     */
+    static String forUser(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Reads the versions a client accepts from an If-Match header, which may list several tags
+     *
+     * @param ifMatch Header value, may be null
+     * @return Versions of the strong tags listed, or null if the header is absent or {@code *}
+     * @throws PreconditionFailedException if the header holds only weak or foreign tags, which never match
+     */
+    static Set<Long> expectedVersions(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<Long> versions = new LinkedHashSet<>();
+        Matcher tag = ENTITY_TAG.matcher(ifMatch);
+        while (tag.find()) {
+            // Weak tags never match under the strong comparison If-Match requires
+            if (tag.group(1) == null) {
+                try {
+                    versions.add(Long.valueOf(tag.group(2)));
+                } catch (NumberFormatException e) {
+                    // Not one of our tags, so it matches no version
+                }
+            }
+        }
+        if (versions.isEmpty()) {
+            throw new PreconditionFailedException("If-Match does not match the current version: " + ifMatch);
+        }
+        return versions;
+    }
+
+    /**
+     * @param revision Revision of the user collection
+     * @param hypermedia Whether the representation carries links, which makes it a different variant
+     * @return Quoted entity tag of the user list
+     */
+    static String forCollection(long revision, boolean hypermedia) {
+        return "\"" + revision + (hypermedia ? "" : "-plain") + "\"";
+    }
+
+    /**
+     * @return Epoch milliseconds for a Last-Modified header, or -1 when unknown
+     */
+    static long lastModified(Instant instant) {
+        return instant == null ? -1 : instant.toEpochMilli();
+    }
+}
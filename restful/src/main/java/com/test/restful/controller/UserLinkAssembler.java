@@ -0,0 +1,94 @@
+package com.test.restful.controller;
+
+import com.test.restful.model.User;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the HATEOAS links of user representations.
+ *
+ * The controller's path is resolved once at startup and the request's base URI once per request;
+ * links are then filled in by string concatenation instead of one {@code WebMvcLinkBuilder}
+ * proxy invocation per user.
+ */
+@Component
+public class UserLinkAssembler {
+
+    /**
+     * Accept profile asking for plain JSON without hypermedia, e.g. {@code application/json;profile="plain"}
+     */
+    public static final String PLAIN_PROFILE = "plain";
+
+    private final String usersPath;
+
+    public UserLinkAssembler() {
+        RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(UserController.class, RequestMapping.class);
+        this.usersPath = mapping.path()[0];
+    }
+
+    /**
+     * @param accept Accept header of the request, may be null
+     * @return false if the client asked for the {@value #PLAIN_PROFILE} profile
+     */
+    public boolean wantsHypermedia(String accept) {
+        if (accept == null || !accept.contains(PLAIN_PROFILE)) {
+            return true;
+        }
+        try {
+            for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+                String profile = mediaType.getParameter("profile");
+                if (profile != null && PLAIN_PROFILE.equals(profile.replace("\"", ""))) {
+                    return false;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return true;
+        }
+        return true;
+    }
+
+    /**
+     * Wraps each user with its self link
+     */
+    public List<EntityModel<User>> toModels(List<User> users) {
+        String base = usersUri();
+        List<EntityModel<User>> models = new ArrayList<>(users.size());
+        for (User user : users) {
+            models.add(EntityModel.of(user, selfLink(base, user.getId())));
+        }
+        return models;
+    }
+
+    /**
+     * Wraps a user with its self link
+     */
+    public EntityModel<User> toModel(User user) {
+        return EntityModel.of(user, selfLink(usersUri(), user.getId()));
+    }
+
+    /**
+     * Wraps a user with its self link and a link to the user collection
+     */
+    public EntityModel<User> toDetailedModel(User user) {
+        String base = usersUri();
+        return EntityModel.of(user, selfLink(base, user.getId()), Link.of(base, "all-users"));
+    }
+
+    private String usersUri() {
+        return ServletUriComponentsBuilder.fromCurrentContextPath().path(usersPath).toUriString();
+    }
+
+    private static Link selfLink(String base, Long id) {
+        return Link.of(base + "/" + id, IanaLinkRelations.SELF);
+    }
+}
@@ -0,0 +1,142 @@
+package com.test.restful.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.test.restful.config.CacheConfig;
+import com.test.restful.model.ApiResponse;
+import com.test.restful.model.ErrorResponse;
+import com.test.restful.model.User;
+import com.test.restful.service.UserListCache;
+import com.test.restful.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Handlers of the asynchronous read API under {@value #BASE_PATH}, routed by {@link UserReadRouter}.
+ *
+ * Reads answered from the caches complete on the request thread. Reads needing the database are
+ * handed to the application task executor and the request thread is returned to the container
+ * until they complete, so a slow query holds a task rather than a request thread.
+ */
+@Component
+public class UserReadHandler {
+    private static final Logger logger = LoggerFactory.getLogger(UserReadHandler.class);
+
+    public static final String BASE_PATH = "/api/async/users";
+
+    private final UserService userService;
+    private final UserListCache userListCache;
+    private final Cache userCache;
+    private final AsyncTaskExecutor executor;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public UserReadHandler(UserService userService, UserListCache userListCache, CacheManager cacheManager,
+                           @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                           AsyncTaskExecutor executor, ObjectMapper objectMapper) {
+        this.userService = userService;
+        this.userListCache = userListCache;
+        this.userCache = cacheManager.getCache(CacheConfig.USERS);
+        this.executor = executor;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns a user by ID
+     */
+    public ServerResponse getUser(ServerRequest request) {
+        Long userId;
+        try {
+            userId = Long.valueOf(request.pathVariable("userId"));
+        } catch (NumberFormatException e) {
+            return error(request, HttpStatus.BAD_REQUEST, "Bad Request", "User ID must be a number");
+        }
+        logger.info("Fetching user with ID: {} asynchronously", userId);
+
+        User cached = userCache.get(userId, User.class);
+        if (cached != null) {
+            return user(cached);
+        }
+        return ServerResponse.async(executor.submitCompletable(() -> userService.getUserById(userId))
+                .thenApply(user -> user.map(UserReadHandler::user).orElseGet(() -> error(request,
+                        HttpStatus.NOT_FOUND, "Resource Not Found", "User not found with id: " + userId))));
+    }
+
+    /**
+     * Returns all users
+     */
+    public ServerResponse getUsers(ServerRequest request) {
+        logger.info("Fetching all users asynchronously");
+
+        List<User> snapshot = userListCache.getIfPresent();
+        if (snapshot != null) {
+            return users(snapshot);
+        }
+        return ServerResponse.async(executor.submitCompletable(() -> userService.getAllUsers())
+                .thenApply(UserReadHandler::users));
+    }
+
+    /**
+     * Streams all users as newline-delimited JSON
+     */
+    public ServerResponse streamUsers(ServerRequest request) {
+        logger.info("Streaming all users asynchronously");
+
+        List<User> snapshot = userListCache.getIfPresent();
+        if (snapshot != null) {
+            return ndjson(snapshot);
+        }
+        return ServerResponse.async(executor.submitCompletable(() -> userService.getAllUsers())
+                .thenApply(this::ndjson));
+    }
+
+    private static ServerResponse user(User user) {
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(ApiResponse.success(user, "User retrieved successfully"));
+    }
+
+    private static ServerResponse users(List<User> users) {
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(ApiResponse.success(users, "Users retrieved successfully"));
+    }
+
+    // Same format as GET /api/users/export, written from the snapshot
+    private ServerResponse ndjson(List<User> users) {
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON).build((request, response) -> {
+            OutputStream out = response.getOutputStream();
+            try (SequenceWriter writer = objectMapper.writer()
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .withRootValueSeparator("\n")
+                    .writeValues(out)) {
+                for (User user : users) {
+                    writer.write(user);
+                }
+            }
+            if (!users.isEmpty()) {
+                out.write('\n');
+            }
+            return null;
+        });
+    }
+
+    private static ServerResponse error(ServerRequest request, HttpStatus status, String error, String message) {
+        logger.error("{}: {}", error, message);
+        return ServerResponse.status(status).contentType(MediaType.APPLICATION_JSON)
+                .body(new ErrorResponse(status.value(), error, List.of(message), request.path()));
+    }
+}
@@ -0,0 +1,53 @@
+package com.test.restful.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import org.springdoc.core.annotations.RouterOperation;
+import org.springdoc.core.annotations.RouterOperations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+
+/**
+ * Routes of the asynchronous read API, served alongside {@link UserController} for clients issuing
+ * many concurrent reads
+ */
+@Configuration
+public class UserReadRouter {
+
+    /**
+     * Configure the read routes; {@code /stream} is matched before {@code /{userId}}
+     */
+    @Bean
+    @RouterOperations({
+        @RouterOperation(path = UserReadHandler.BASE_PATH, method = RequestMethod.GET,
+                beanClass = UserReadHandler.class, beanMethod = "getUsers",
+                operation = @Operation(operationId = "getUsersAsync", summary = "Get all users asynchronously",
+                        description = "Answered from the cached user list, or loaded without holding a request thread",
+                        tags = "User Management")),
+        @RouterOperation(path = UserReadHandler.BASE_PATH + "/stream", method = RequestMethod.GET,
+                beanClass = UserReadHandler.class, beanMethod = "streamUsers",
+                operation = @Operation(operationId = "streamUsersAsync", summary = "Stream all users asynchronously",
+                        description = "Streams the cached user list as newline-delimited JSON",
+                        tags = "User Management")),
+        @RouterOperation(path = UserReadHandler.BASE_PATH + "/{userId}", method = RequestMethod.GET,
+                beanClass = UserReadHandler.class, beanMethod = "getUser",
+                operation = @Operation(operationId = "getUserByIdAsync", summary = "Get user by ID asynchronously",
+                        description = "Answered from the user cache, or loaded without holding a request thread",
+                        tags = "User Management",
+                        parameters = @Parameter(name = "userId", in = ParameterIn.PATH, required = true,
+                                description = "ID of the user to retrieve")))
+    })
+    public RouterFunction<ServerResponse> userReadRoutes(UserReadHandler handler) {
+        return RouterFunctions.route()
+                .path(UserReadHandler.BASE_PATH, builder -> builder
+                        .GET("", handler::getUsers)
+                        .GET("/stream", handler::streamUsers)
+                        .GET("/{userId}", handler::getUser))
+                .build();
+    }
+}
@@ -2,18 +2,19 @@ package com.test.restful.entity;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
-@Table(name = "address")
+@DynamicUpdate
+@Table(name = "address", indexes = @Index(name = "idx_address_city", columnList = "city"))
 public class AddressEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("address_seq")
     private Long id;
     
     private String street;
@@ -21,7 +22,7 @@ public class AddressEntity {
     private String city;
     private String zipcode;
     
-    @OneToOne(cascade = CascadeType.ALL)
+    @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true)
     @JoinColumn(name = "geo_id", referencedColumnName = "id")
     private GeoEntity geo;
     
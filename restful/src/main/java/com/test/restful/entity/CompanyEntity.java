@@ -1,16 +1,17 @@
 package com.test.restful.entity;
 
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
-@Table(name = "company")
+@DynamicUpdate
+@Table(name = "company", indexes = @Index(name = "idx_company_name", columnList = "name"))
 public class CompanyEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("company_seq")
     private Long id;
     
     private String name;
@@ -1,20 +1,26 @@
 package com.test.restful.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
+@DynamicUpdate
 @Table(name = "geo")
 public class GeoEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("geo_seq")
     private Long id;
     
-    private String lat;
-    private String lng;
+    // Numeric, so coordinates can be compared and indexed; the former lat/lng text columns are
+    // migrated by GeoCoordinateMigration
+    @Column(name = "latitude")
+    private Double lat;
+
+    @Column(name = "longitude")
+    private Double lng;
     
     public Long getId() {
         return id;
@@ -24,19 +30,19 @@ public class GeoEntity {
         this.id = id;
     }
     
-    public String getLat() {
+    public Double getLat() {
         return lat;
     }
     
-    public void setLat(String lat) {
+    public void setLat(Double lat) {
         this.lat = lat;
     }
     
-    public String getLng() {
+    public Double getLng() {
         return lng;
     }
     
-    public void setLng(String lng) {
+    public void setLng(Double lng) {
         this.lng = lng;
     }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.test.restful.entity;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates identifiers from a database sequence, reserving a block of values per round-trip.
+ *
+ * Unlike IDENTITY columns this keeps Hibernate's JDBC insert batching enabled. The block size is
+ * read from the {@value PooledSequenceGenerator#ALLOCATION_SIZE_SETTING} setting.
+ */
+@IdGeneratorType(PooledSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PooledSequence {
+
+    /**
+     * Name of the backing database sequence
+     */
+    String value();
+}
@@ -3,44 +3,118 @@ package com.test.restful.entity;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
 
 @Entity
-@Table(name = "users")
+@DynamicUpdate
+@Table(name = "users",
+        uniqueConstraints = {
+                @UniqueConstraint(name = UserEntity.USERNAME_CONSTRAINT, columnNames = "username_key"),
+                @UniqueConstraint(name = UserEntity.EMAIL_CONSTRAINT, columnNames = "email_key")
+        },
+        indexes = {
+                @Index(name = "idx_users_name", columnList = "name")
+        })
+@NamedEntityGraph(
+        name = UserEntity.DETAILS_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode(value = "address", subgraph = "address"),
+                @NamedAttributeNode("company")
+        },
+        subgraphs = @NamedSubgraph(name = "address", attributeNodes = @NamedAttributeNode("geo")))
 public class UserEntity {
+    /**
+     * Fetch plan loading a user together with its address, geo and company
+     */
+    public static final String DETAILS_GRAPH = "User.details";
+
+    /**
+     * Names of the unique constraints, used to tell which field a violation is about
+     */
+    public static final String USERNAME_CONSTRAINT = "uk_users_username";
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("users_seq")
     private Long id;
     
     @NotBlank(message = "Name is required")
     private String name;
     
     @NotBlank(message = "Username is required")
-    @Column(unique = true)
     private String username;
+
+    // Case-normalised copies of username and email, maintained by the setters. Uniqueness and
+    // lookups go through these, so "Bret" and "bret" are the same account.
+    @Column(name = "username_key")
+    private String usernameKey;
+
+    @Column(name = "email_key")
+    private String emailKey;
     
     @NotBlank(message = "Email is required")
     @Email(message = "Email should be valid")
-    @Column(unique = true)
     private String email;
     
-    @OneToOne(cascade = CascadeType.ALL)
+    @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true)
     @JoinColumn(name = "address_id", referencedColumnName = "id")
     private AddressEntity address;
     
     private String phone;
     private String website;
     
-    @OneToOne(cascade = CascadeType.ALL)
+    @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true)
     @JoinColumn(name = "company_id", referencedColumnName = "id")
     private CompanyEntity company;
+
+    /**
+     * Revision of the user, incremented by Hibernate on every update of the row
+     */
+    @Version
+    private Long version;
+
+    @Column(name = "last_modified", nullable = false)
+    private Instant lastModified;
+
+    @PrePersist
+    void onCreate() {
+        if (lastModified == null) {
+            touch();
+        }
+    }
+
+    /**
+     * Normalises a username or email for case-insensitive comparison
+     */
+    public static String normalizeKey(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Stamps the modification time. Changes to the address or company rows alone do not dirty the
+     * user row, so updates call this to make sure the version is incremented.
+     */
+    public void touch() {
+        // Truncated to the column precision so the in-memory value matches what is read back
+        lastModified = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
     
     public Long getId() {
         return id;
@@ -64,6 +138,7 @@ public class UserEntity {
     
     public void setUsername(String username) {
         this.username = username;
+        this.usernameKey = normalizeKey(username);
     }
     
     public String getEmail() {
@@ -72,6 +147,7 @@ public class UserEntity {
     
     public void setEmail(String email) {
         this.email = email;
+        this.emailKey = normalizeKey(email);
     }
     
     public AddressEntity getAddress() {
@@ -105,4 +181,28 @@ public class UserEntity {
     public void setCompany(CompanyEntity company) {
         this.company = company;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public Instant getLastModified() {
+        return lastModified;
+    }
+    
+    public void setLastModified(Instant lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public String getUsernameKey() {
+        return usernameKey;
+    }
+    
+    public String getEmailKey() {
+        return emailKey;
+    }
 }
\ No newline at end of file
@@ -8,8 +8,16 @@ import com.test.restful.model.Address;
 import com.test.restful.model.Company;
 import com.test.restful.model.Geo;
 import com.test.restful.model.User;
+import com.test.restful.model.UserField;
+import jakarta.persistence.Tuple;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
 @Component
 public class UserMapper {
 
@@ -25,6 +33,8 @@ public class UserMapper {
         user.setEmail(entity.getEmail());
         user.setPhone(entity.getPhone());
         user.setWebsite(entity.getWebsite());
+        user.setVersion(entity.getVersion());
+        user.setLastModified(entity.getLastModified());
         
         if (entity.getAddress() != null) {
             Address address = new Address();
@@ -35,8 +45,8 @@ public class UserMapper {
             
             if (entity.getAddress().getGeo() != null) {
                 Geo geo = new Geo();
-                geo.setLat(entity.getAddress().getGeo().getLat());
-                geo.setLng(entity.getAddress().getGeo().getLng());
+                geo.setLat(formatCoordinate(entity.getAddress().getGeo().getLat()));
+                geo.setLng(formatCoordinate(entity.getAddress().getGeo().getLng()));
                 address.setGeo(geo);
             }
             
@@ -76,8 +86,8 @@ public class UserMapper {
             
             if (dto.getAddress().getGeo() != null) {
                 GeoEntity geoEntity = new GeoEntity();
-                geoEntity.setLat(dto.getAddress().getGeo().getLat());
-                geoEntity.setLng(dto.getAddress().getGeo().getLng());
+                geoEntity.setLat(parseCoordinate(dto.getAddress().getGeo().getLat()));
+                geoEntity.setLng(parseCoordinate(dto.getAddress().getGeo().getLng()));
                 addressEntity.setGeo(geoEntity);
             }
             
@@ -123,8 +133,8 @@ public class UserMapper {
                     entity.getAddress().setGeo(new GeoEntity());
                 }
                 
-                entity.getAddress().getGeo().setLat(dto.getAddress().getGeo().getLat());
-                entity.getAddress().getGeo().setLng(dto.getAddress().getGeo().getLng());
+                entity.getAddress().getGeo().setLat(parseCoordinate(dto.getAddress().getGeo().getLat()));
+                entity.getAddress().getGeo().setLng(parseCoordinate(dto.getAddress().getGeo().getLng()));
             }
         }
         
@@ -139,4 +149,240 @@ public class UserMapper {
             entity.getCompany().setBs(dto.getCompany().getBs());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Copies the values of the DTO that differ from the entity, leaving equal columns untouched.
+     * A missing address, geo or company removes the owned row.
+     *
+     * @return true if anything changed
+     */
+    public boolean applyChanges(User dto, UserEntity entity) {
+        boolean changed = false;
+        if (!Objects.equals(dto.getName(), entity.getName())) {
+            entity.setName(dto.getName());
+            changed = true;
+        }
+        if (!Objects.equals(dto.getUsername(), entity.getUsername())) {
+            entity.setUsername(dto.getUsername());
+            changed = true;
+        }
+        if (!Objects.equals(dto.getEmail(), entity.getEmail())) {
+            entity.setEmail(dto.getEmail());
+            changed = true;
+        }
+        if (!Objects.equals(dto.getPhone(), entity.getPhone())) {
+            entity.setPhone(dto.getPhone());
+            changed = true;
+        }
+        if (!Objects.equals(dto.getWebsite(), entity.getWebsite())) {
+            entity.setWebsite(dto.getWebsite());
+            changed = true;
+        }
+        changed |= applyAddressChanges(dto.getAddress(), entity);
+        changed |= applyCompanyChanges(dto.getCompany(), entity);
+        return changed;
+    }
+
+    private boolean applyAddressChanges(Address dto, UserEntity entity) {
+        if (dto == null) {
+            if (entity.getAddress() == null) {
+                return false;
+            }
+            entity.setAddress(null);
+            return true;
+        }
+
+        boolean changed = false;
+        AddressEntity address = entity.getAddress();
+        if (address == null) {
+            address = new AddressEntity();
+            entity.setAddress(address);
+            changed = true;
+        }
+        if (!Objects.equals(dto.getStreet(), address.getStreet())) {
+            address.setStreet(dto.getStreet());
+            changed = true;
+        }
+        if (!Objects.equals(dto.getSuite(), address.getSuite())) {
+            address.setSuite(dto.getSuite());
+            changed = true;
+        }
+        if (!Objects.equals(dto.getCity(), address.getCity())) {
+            address.setCity(dto.getCity());
+            changed = true;
+        }
+        if (!Objects.equals(dto.getZipcode(), address.getZipcode())) {
+            address.setZipcode(dto.getZipcode());
+            changed = true;
+        }
+
+        Geo geo = dto.getGeo();
+        if (geo == null) {
+            if (address.getGeo() != null) {
+                address.setGeo(null);
+                changed = true;
+            }
+            return changed;
+        }
+        if (address.getGeo() == null) {
+            address.setGeo(new GeoEntity());
+            changed = true;
+        }
+        Double lat = parseCoordinate(geo.getLat());
+        if (!Objects.equals(lat, address.getGeo().getLat())) {
+            address.getGeo().setLat(lat);
+            changed = true;
+        }
+        Double lng = parseCoordinate(geo.getLng());
+        if (!Objects.equals(lng, address.getGeo().getLng())) {
+            address.getGeo().setLng(lng);
+            changed = true;
+        }
+        return changed;
+    }
+
+    private boolean applyCompanyChanges(Company dto, UserEntity entity) {
+        if (dto == null) {
+            if (entity.getCompany() == null) {
+                return false;
+            }
+            entity.setCompany(null);
+            return true;
+        }
+
+        boolean changed = false;
+        CompanyEntity company = entity.getCompany();
+        if (company == null) {
+            company = new CompanyEntity();
+            entity.setCompany(company);
+            changed = true;
+        }
+        if (!Objects.equals(dto.getName(), company.getName())) {
+            company.setName(dto.getName());
+            changed = true;
+        }
+        if (!Objects.equals(dto.getCatchPhrase(), company.getCatchPhrase())) {
+            company.setCatchPhrase(dto.getCatchPhrase());
+            changed = true;
+        }
+        if (!Objects.equals(dto.getBs(), company.getBs())) {
+            company.setBs(dto.getBs());
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Maps a projection row to a map holding only the requested fields, in declaration order
+     */
+    public Map<String, Object> toFieldMap(Tuple tuple, Set<UserField> fields) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (UserField field : fields) {
+            switch (field) {
+                case ADDRESS -> result.put(field.getJsonName(), toAddress(tuple));
+                case COMPANY -> result.put(field.getJsonName(), toCompany(tuple));
+                default -> result.put(field.getJsonName(), tuple.get(field.getJsonName()));
+            }
+        }
+        return result;
+    }
+
+    private Address toAddress(Tuple tuple) {
+        if (tuple.get("address.id") == null) {
+            return null;
+        }
+
+        Address address = new Address();
+        address.setStreet(tuple.get("address.street", String.class));
+        address.setSuite(tuple.get("address.suite", String.class));
+        address.setCity(tuple.get("address.city", String.class));
+        address.setZipcode(tuple.get("address.zipcode", String.class));
+
+        if (tuple.get("address.geo.id") != null) {
+            Geo geo = new Geo();
+            geo.setLat(formatCoordinate(tuple.get("address.geo.lat", Double.class)));
+            geo.setLng(formatCoordinate(tuple.get("address.geo.lng", Double.class)));
+            address.setGeo(geo);
+        }
+        return address;
+    }
+
+    private Company toCompany(Tuple tuple) {
+        if (tuple.get("company.id") == null) {
+            return null;
+        }
+
+        Company company = new Company();
+        company.setName(tuple.get("company.name", String.class));
+        company.setCatchPhrase(tuple.get("company.catchPhrase", String.class));
+        company.setBs(tuple.get("company.bs", String.class));
+        return company;
+    }
+
+    /**
+     * Parses a coordinate of the API representation, already validated as a decimal number
+     *
+     * @return The coordinate, or null if absent
+     */
+    public static Double parseCoordinate(String value) {
+        return value == null || value.isBlank() ? null : Double.valueOf(value.trim());
+    }
+
+    /**
+     * Formats a stored coordinate for the API representation, without exponent notation
+     */
+    public static String formatCoordinate(Double value) {
+        return value == null ? null : BigDecimal.valueOf(value).toPlainString();
+    }
+
+    /**
+     * Deep copy of a user, for caches handing out users their callers may change
+     */
+    public static User copy(User user) {
+        if (user == null) {
+            return null;
+        }
+
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setUsername(user.getUsername());
+        copy.setEmail(user.getEmail());
+        copy.setAddress(copy(user.getAddress()));
+        copy.setPhone(user.getPhone());
+        copy.setWebsite(user.getWebsite());
+        copy.setCompany(copy(user.getCompany()));
+        copy.setVersion(user.getVersion());
+        copy.setLastModified(user.getLastModified());
+        return copy;
+    }
+
+    private static Address copy(Address address) {
+        if (address == null) {
+            return null;
+        }
+        Address copy = new Address();
+        copy.setStreet(address.getStreet());
+        copy.setSuite(address.getSuite());
+        copy.setCity(address.getCity());
+        copy.setZipcode(address.getZipcode());
+        if (address.getGeo() != null) {
+            Geo geo = new Geo();
+            geo.setLat(address.getGeo().getLat());
+            geo.setLng(address.getGeo().getLng());
+            copy.setGeo(geo);
+        }
+        return copy;
+    }
+
+    private static Company copy(Company company) {
+        if (company == null) {
+            return null;
+        }
+        Company copy = new Company();
+        copy.setName(company.getName());
+        copy.setCatchPhrase(company.getCatchPhrase());
+        copy.setBs(company.getBs());
+        return copy;
+    }
+}
@@ -1,10 +1,13 @@
 package com.test.restful.model;
 
+import jakarta.validation.Valid;
+
 public class Address {
     private String street;
     private String suite;
     private String city;
     private String zipcode;
+    @Valid
     private Geo geo;
 
     public String getSuite() {
@@ -0,0 +1,33 @@
+package com.test.restful.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch user delete
+ */
+public class BulkDeleteResult {
+    private List<Long> deleted;
+    private List<Long> notFound;
+
+    public BulkDeleteResult(List<Long> deleted, List<Long> notFound) {
+        this.deleted = deleted;
+        this.notFound = notFound;
+    }
+
+    // Getters and setters
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<Long> deleted) {
+        this.deleted = deleted;
+    }
+
+    public List<Long> getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(List<Long> notFound) {
+        this.notFound = notFound;
+    }
+}
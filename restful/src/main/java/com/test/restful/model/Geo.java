@@ -1,7 +1,18 @@
 package com.test.restful.model;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+
+/**
+ * Coordinates in decimal degrees. They are strings on the wire and numbers in the database.
+ */
 public class Geo {
+    @DecimalMin(value = "-90", message = "Latitude must be a number between -90 and 90")
+    @DecimalMax(value = "90", message = "Latitude must be a number between -90 and 90")
     private String lat;
+
+    @DecimalMin(value = "-180", message = "Longitude must be a number between -180 and 180")
+    @DecimalMax(value = "180", message = "Longitude must be a number between -180 and 180")
     private String lng;
 
     public String getLat() {
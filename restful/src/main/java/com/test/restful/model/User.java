@@ -1,8 +1,11 @@
 package com.test.restful.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 
+import java.time.Instant;
 import java.util.Objects;
 
 public class User {
@@ -18,11 +21,19 @@ public class User {
     @Email(message = "Email should be valid")
     private String email;
 
+    @Valid
     private Address address;
     private String phone;
     private String website;
     private Company company;
 
+    // Revision metadata, exposed through the ETag and Last-Modified headers rather than the body
+    @JsonIgnore
+    private Long version;
+
+    @JsonIgnore
+    private Instant lastModified;
+
     public Long getId() {
         return id;
     }
@@ -87,6 +98,22 @@ public class User {
         this.company = company;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Instant lastModified) {
+        this.lastModified = lastModified;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
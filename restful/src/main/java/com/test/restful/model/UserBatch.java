@@ -0,0 +1,35 @@
+package com.test.restful.model;
+
+import java.util.List;
+
+/**
+ * Users fetched by ID in one request
+ *
+ * @param <T> Representation of a user, the user itself or the user with its links
+ */
+public class UserBatch<T> {
+    private List<T> users;
+    private List<Long> notFound;
+
+    public UserBatch(List<T> users, List<Long> notFound) {
+        this.users = users;
+        this.notFound = notFound;
+    }
+
+    // Getters and setters
+    public List<T> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<T> users) {
+        this.users = users;
+    }
+
+    public List<Long> getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(List<Long> notFound) {
+        this.notFound = notFound;
+    }
+}
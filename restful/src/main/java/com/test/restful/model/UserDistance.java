@@ -0,0 +1,31 @@
+package com.test.restful.model;
+
+/**
+ * A user found by a radius search, with its great-circle distance
+ */
+public class UserDistance {
+    private User user;
+    private double distanceKm;
+
+    public UserDistance(User user, double distanceKm) {
+        this.user = user;
+        this.distanceKm = distanceKm;
+    }
+
+    // Getters and setters
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+
+    public void setDistanceKm(double distanceKm) {
+        this.distanceKm = distanceKm;
+    }
+}
@@ -0,0 +1,59 @@
+package com.test.restful.model;
+
+import com.test.restful.exception.BadRequestException;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Top-level fields of {@link User} that can be requested with a {@code fields=} sparse fieldset.
+ * Address and company are returned as whole sub-objects.
+ */
+public enum UserField {
+    ID("id"),
+    NAME("name"),
+    USERNAME("username"),
+    EMAIL("email"),
+    PHONE("phone"),
+    WEBSITE("website"),
+    ADDRESS("address"),
+    COMPANY("company");
+
+    private final String jsonName;
+
+    UserField(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    /**
+     * Parses a comma separated field list; the id is always included
+     *
+     * @param fields e.g. {@code "username,email"}
+     * @return Requested fields in declaration order
+     * @throws BadRequestException if a field is unknown
+     */
+    public static Set<UserField> parse(String fields) {
+        Set<UserField> result = EnumSet.of(ID);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            result.add(fromJsonName(trimmed));
+        }
+        return result;
+    }
+
+    private static UserField fromJsonName(String name) {
+        for (UserField field : values()) {
+            if (field.jsonName.equals(name)) {
+                return field;
+            }
+        }
+        throw new BadRequestException("Unknown field: " + name);
+    }
+}
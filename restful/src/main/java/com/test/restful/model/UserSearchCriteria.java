@@ -0,0 +1,51 @@
+package com.test.restful.model;
+
+/**
+ * Filters of a user search. Filters that are null are not applied; the others are combined with AND.
+ */
+public class UserSearchCriteria {
+    private String city;
+    private String company;
+    private String namePrefix;
+    private String usernamePrefix;
+
+    /**
+     * @return true if no filter is set
+     */
+    public boolean isEmpty() {
+        return city == null && company == null && namePrefix == null && usernamePrefix == null;
+    }
+
+    // Getters and setters
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    public void setCompany(String company) {
+        this.company = company;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public void setNamePrefix(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    public String getUsernamePrefix() {
+        return usernamePrefix;
+    }
+
+    public void setUsernamePrefix(String usernamePrefix) {
+        this.usernamePrefix = usernamePrefix;
+    }
+}
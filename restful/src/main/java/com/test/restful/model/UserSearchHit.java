@@ -0,0 +1,31 @@
+package com.test.restful.model;
+
+/**
+ * A user found by a full-text search, with its relevance
+ */
+public class UserSearchHit {
+    private User user;
+    private double score;
+
+    public UserSearchHit(User user, double score) {
+        this.user = user;
+        this.score = score;
+    }
+
+    // Getters and setters
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,20 @@
+package com.test.restful.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Deletes of user rows that report which rows each delete removed
+ */
+public interface UserDeletionRepository {
+
+    /**
+     * Deletes the user rows with one statement per id, sent as a single JDBC batch, so the affected
+     * row count of each id tells whether this call deleted it. Owned rows are left to the caller.
+     * Pending changes are flushed before and the persistence context is cleared after.
+     *
+     * @param ids User IDs
+     * @return The IDs whose row this call deleted, in the given order
+     */
+    List<Long> deleteUsersById(Collection<Long> ids);
+}
@@ -0,0 +1,50 @@
+package com.test.restful.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JDBC batch based implementation of {@link UserDeletionRepository}
+ */
+public class UserDeletionRepositoryImpl implements UserDeletionRepository {
+
+    private final EntityManager entityManager;
+
+    public UserDeletionRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Long> deleteUsersById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Long> batch = List.copyOf(ids);
+        entityManager.flush();
+        List<Long> deleted = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("delete from users where id = ?")) {
+                for (Long id : batch) {
+                    statement.setLong(1, id);
+                    statement.addBatch();
+                }
+                int[] counts = statement.executeBatch();
+                List<Long> removed = new ArrayList<>(batch.size());
+                for (int i = 0; i < counts.length; i++) {
+                    // A driver not reporting per-statement counts is taken at its word that the delete ran
+                    if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                        removed.add(batch.get(i));
+                    }
+                }
+                return removed;
+            }
+        });
+        entityManager.clear();
+        return deleted;
+    }
+}
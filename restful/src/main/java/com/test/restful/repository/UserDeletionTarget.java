@@ -0,0 +1,14 @@
+package com.test.restful.repository;
+
+/**
+ * A user about to be deleted, with the ids of the rows it owns
+ *
+ * @param id User id
+ * @param username Username, to evict lookups by username
+ * @param email Email, to evict lookups by email
+ * @param addressId Owned address, or null
+ * @param geoId Geo of the owned address, or null
+ * @param companyId Owned company, or null
+ */
+public record UserDeletionTarget(Long id, String username, String email, Long addressId, Long geoId, Long companyId) {
+}
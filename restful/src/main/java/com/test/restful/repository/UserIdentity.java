@@ -0,0 +1,10 @@
+package com.test.restful.repository;
+
+/**
+ * Unique identifiers of a user, read without loading the entity
+ *
+ * @param username Username of the user
+ * @param email Email of the user
+ */
+public record UserIdentity(String username, String email) {
+}
@@ -1,15 +1,166 @@
 package com.test.restful.repository;
 
 import com.test.restful.entity.UserEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * Repository for users.
+ *
+ * Reads that return users fetch the address, geo and company associations in the same
+ * statement, so loading N users costs one select instead of 1 + 3N.
+ */
 @Repository
-public interface UserJpaRepository extends JpaRepository<UserEntity, Long> {
-    Optional<UserEntity> findByUsername(String username);
-    Optional<UserEntity> findByEmail(String email);
-    boolean existsByUsername(String username);
-    boolean existsByEmail(String email);
-}
\ No newline at end of file
+public interface UserJpaRepository extends JpaRepository<UserEntity, Long>, JpaSpecificationExecutor<UserEntity>,
+        UserProjectionRepository, UserDeletionRepository {
+
+    @Override
+    @EntityGraph(UserEntity.DETAILS_GRAPH)
+    List<UserEntity> findAll();
+
+    @Override
+    @EntityGraph(UserEntity.DETAILS_GRAPH)
+    Page<UserEntity> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(UserEntity.DETAILS_GRAPH)
+    Optional<UserEntity> findById(Long id);
+
+    @Override
+    @EntityGraph(UserEntity.DETAILS_GRAPH)
+    List<UserEntity> findAllById(Iterable<Long> ids);
+
+    /**
+     * Search page, see {@link UserSpecifications}
+     */
+    @Override
+    @EntityGraph(UserEntity.DETAILS_GRAPH)
+    Page<UserEntity> findAll(Specification<UserEntity> spec, Pageable pageable);
+
+    /**
+     * Keyset page: users with an id above the given one, without a count query
+     */
+    @EntityGraph(UserEntity.DETAILS_GRAPH)
+    Slice<UserEntity> findByIdGreaterThan(Long id, Pageable pageable);
+
+    /**
+     * Streams all users in id order through a forward-only cursor.
+     * Must be consumed inside a transaction and closed afterwards.
+     */
+    @EntityGraph(UserEntity.DETAILS_GRAPH)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u from UserEntity u order by u.id")
+    Stream<UserEntity> streamAll();
+
+    /**
+     * Streams the username and email of every user, e.g. to warm an in-memory index.
+     * Must be consumed inside a transaction and closed afterwards.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.test.restful.repository.UserIdentity(u.username, u.email) from UserEntity u")
+    Stream<UserIdentity> streamIdentities();
+
+    /**
+     * Streams the full-text indexed fields of every user, see {@link UserSearchDocument}.
+     * Must be consumed inside a transaction and closed afterwards.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.test.restful.repository.UserSearchDocument(u.id, u.name, u.username, c.catchPhrase, c.bs) "
+            + "from UserEntity u left join u.company c")
+    Stream<UserSearchDocument> streamSearchDocuments();
+
+    /**
+     * Streams the coordinates of every user whose address has them.
+     * Must be consumed inside a transaction and closed afterwards.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.test.restful.repository.UserLocation(u.id, g.lat, g.lng) "
+            + "from UserEntity u join u.address a join a.geo g where g.lat is not null and g.lng is not null")
+    Stream<UserLocation> streamLocations();
+
+    /**
+     * Looks a user up by username, ignoring case
+     *
+     * @param usernameKey Username normalised with {@link UserEntity#normalizeKey}
+     */
+    @EntityGraph(UserEntity.DETAILS_GRAPH)
+    @Query("select u from UserEntity u where u.usernameKey = :usernameKey")
+    Optional<UserEntity> findByUsernameKey(@Param("usernameKey") String usernameKey);
+
+    /**
+     * Looks a user up by email, ignoring case
+     *
+     * @param emailKey Email normalised with {@link UserEntity#normalizeKey}
+     */
+    @EntityGraph(UserEntity.DETAILS_GRAPH)
+    @Query("select u from UserEntity u where u.emailKey = :emailKey")
+    Optional<UserEntity> findByEmailKey(@Param("emailKey") String emailKey);
+
+    /**
+     * @param usernameKey Username normalised with {@link UserEntity#normalizeKey}
+     */
+    @Query("select count(u) > 0 from UserEntity u where u.usernameKey = :usernameKey")
+    boolean existsByUsernameKey(@Param("usernameKey") String usernameKey);
+
+    /**
+     * @param emailKey Email normalised with {@link UserEntity#normalizeKey}
+     */
+    @Query("select count(u) > 0 from UserEntity u where u.emailKey = :emailKey")
+    boolean existsByEmailKey(@Param("emailKey") String emailKey);
+
+    /**
+     * @param usernameKeys Normalised usernames
+     * @return The given keys that are taken
+     */
+    @Query("select u.usernameKey from UserEntity u where u.usernameKey in :usernameKeys")
+    List<String> findExistingUsernames(@Param("usernameKeys") Collection<String> usernameKeys);
+
+    /**
+     * @param emailKeys Normalised emails
+     * @return The given keys that are taken
+     */
+    @Query("select u.emailKey from UserEntity u where u.emailKey in :emailKeys")
+    List<String> findExistingEmails(@Param("emailKeys") Collection<String> emailKeys);
+
+    /**
+     * Reads the users to delete together with the ids of their address, geo and company rows
+     */
+    @Query("select new com.test.restful.repository.UserDeletionTarget(u.id, u.username, u.email, a.id, g.id, c.id) "
+            + "from UserEntity u left join u.address a left join a.geo g left join u.company c "
+            + "where u.id in :ids")
+    List<UserDeletionTarget> findDeletionTargets(@Param("ids") Collection<Long> ids);
+
+    // Bulk deletes of the addresses, geos and companies owned by users deleted with deleteUsersById
+
+    @Modifying
+    @Query("delete from AddressEntity a where a.id in :ids")
+    int deleteAddressesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from GeoEntity g where g.id in :ids")
+    int deleteGeosByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from CompanyEntity c where c.id in :ids")
+    int deleteCompaniesByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,11 @@
+package com.test.restful.repository;
+
+/**
+ * Coordinates of a user's address, read without loading the entity
+ *
+ * @param id ID of the user
+ * @param lat Latitude in decimal degrees
+ * @param lng Longitude in decimal degrees
+ */
+public record UserLocation(Long id, Double lat, Double lng) {
+}
@@ -0,0 +1,28 @@
+package com.test.restful.repository;
+
+import com.test.restful.model.UserField;
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Projection queries selecting only the columns, and joining only the tables, of the requested fields.
+ *
+ * Tuple elements are aliased by field name, with address and company columns prefixed by the
+ * field, e.g. {@code "username"}, {@code "address.city"}, {@code "address.geo.lat"}, {@code "company.name"}.
+ */
+public interface UserProjectionRepository {
+
+    List<Tuple> findAllProjected(Set<UserField> fields);
+
+    Page<Tuple> findAllProjected(Set<UserField> fields, Pageable pageable);
+
+    Slice<Tuple> findProjectedAfter(Long lastId, Set<UserField> fields, int size);
+
+    Optional<Tuple> findProjectedById(Long id, Set<UserField> fields);
+}
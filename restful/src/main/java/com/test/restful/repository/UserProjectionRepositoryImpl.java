@@ -0,0 +1,124 @@
+package com.test.restful.repository;
+
+import com.test.restful.entity.AddressEntity;
+import com.test.restful.entity.CompanyEntity;
+import com.test.restful.entity.GeoEntity;
+import com.test.restful.entity.UserEntity;
+import com.test.restful.model.UserField;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Criteria based implementation of {@link UserProjectionRepository}
+ */
+public class UserProjectionRepositoryImpl implements UserProjectionRepository {
+
+    private final EntityManager entityManager;
+
+    public UserProjectionRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Tuple> findAllProjected(Set<UserField> fields) {
+        return createQuery(fields, null, Sort.by("id")).getResultList();
+    }
+
+    @Override
+    public Page<Tuple> findAllProjected(Set<UserField> fields, Pageable pageable) {
+        TypedQuery<Tuple> query = createQuery(fields, null, pageable.getSortOr(Sort.by("id")));
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, this::count);
+    }
+
+    @Override
+    public Slice<Tuple> findProjectedAfter(Long lastId, Set<UserField> fields, int size) {
+        long seekFrom = lastId == null ? Long.MIN_VALUE : lastId;
+        TypedQuery<Tuple> query = createQuery(fields, (cb, user) -> cb.greaterThan(user.get("id"), seekFrom), Sort.by("id"));
+        // One extra row tells whether another page follows
+        query.setMaxResults(size + 1);
+        List<Tuple> content = new ArrayList<>(query.getResultList());
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content.remove(size);
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, size, Sort.by("id")), hasNext);
+    }
+
+    @Override
+    public Optional<Tuple> findProjectedById(Long id, Set<UserField> fields) {
+        return createQuery(fields, (cb, user) -> cb.equal(user.get("id"), id), Sort.unsorted())
+                .getResultStream()
+                .findFirst();
+    }
+
+    private TypedQuery<Tuple> createQuery(Set<UserField> fields,
+                                          BiFunction<CriteriaBuilder, Root<UserEntity>, Predicate> restriction,
+                                          Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<UserEntity> user = query.from(UserEntity.class);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        for (UserField field : fields) {
+            switch (field) {
+                case ADDRESS -> {
+                    Join<UserEntity, AddressEntity> address = user.join("address", JoinType.LEFT);
+                    Join<AddressEntity, GeoEntity> geo = address.join("geo", JoinType.LEFT);
+                    selections.add(address.get("id").alias("address.id"));
+                    selections.add(address.get("street").alias("address.street"));
+                    selections.add(address.get("suite").alias("address.suite"));
+                    selections.add(address.get("city").alias("address.city"));
+                    selections.add(address.get("zipcode").alias("address.zipcode"));
+                    selections.add(geo.get("id").alias("address.geo.id"));
+                    selections.add(geo.get("lat").alias("address.geo.lat"));
+                    selections.add(geo.get("lng").alias("address.geo.lng"));
+                }
+                case COMPANY -> {
+                    Join<UserEntity, CompanyEntity> company = user.join("company", JoinType.LEFT);
+                    selections.add(company.get("id").alias("company.id"));
+                    selections.add(company.get("name").alias("company.name"));
+                    selections.add(company.get("catchPhrase").alias("company.catchPhrase"));
+                    selections.add(company.get("bs").alias("company.bs"));
+                }
+                default -> selections.add(user.get(field.getJsonName()).alias(field.getJsonName()));
+            }
+        }
+
+        query.multiselect(selections);
+        if (restriction != null) {
+            query.where(restriction.apply(cb, user));
+        }
+        query.orderBy(QueryUtils.toOrders(sort, user, cb));
+        return entityManager.createQuery(query);
+    }
+
+    private long count() {
+        return entityManager.createQuery("select count(u) from UserEntity u", Long.class).getSingleResult();
+    }
+}
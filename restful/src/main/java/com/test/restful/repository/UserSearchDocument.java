@@ -0,0 +1,13 @@
+package com.test.restful.repository;
+
+/**
+ * Text fields of a user that are full-text indexed, read without loading the entity
+ *
+ * @param id ID of the user
+ * @param name Name of the user
+ * @param username Username of the user
+ * @param catchPhrase Catch phrase of the user's company, may be null
+ * @param bs Business line of the user's company, may be null
+ */
+public record UserSearchDocument(Long id, String name, String username, String catchPhrase, String bs) {
+}
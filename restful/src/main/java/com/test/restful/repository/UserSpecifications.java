@@ -0,0 +1,107 @@
+package com.test.restful.repository;
+
+import com.test.restful.entity.AddressEntity;
+import com.test.restful.entity.CompanyEntity;
+import com.test.restful.entity.UserEntity;
+import com.test.restful.model.UserSearchCriteria;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search predicates over users, their address and their company.
+ *
+ * Each predicate compares a plain indexed column: equality on {@code address.city} and
+ * {@code company.name}, matched through a subquery on the foreign key, and a left-anchored
+ * {@code like} on {@code users.name} and {@code users.username_key}, which the database answers
+ * with an index range scan.
+ */
+public final class UserSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private UserSpecifications() {
+    }
+
+    /**
+     * Combines the filters that are set; an empty criteria matches every user
+     */
+    public static Specification<UserEntity> matching(UserSearchCriteria criteria) {
+        List<Specification<UserEntity>> specs = new ArrayList<>(4);
+        if (criteria.getCity() != null) {
+            specs.add(livesIn(criteria.getCity()));
+        }
+        if (criteria.getCompany() != null) {
+            specs.add(worksAt(criteria.getCompany()));
+        }
+        if (criteria.getNamePrefix() != null) {
+            specs.add(nameStartsWith(criteria.getNamePrefix()));
+        }
+        if (criteria.getUsernamePrefix() != null) {
+            specs.add(usernameStartsWith(criteria.getUsernamePrefix()));
+        }
+        return Specification.allOf(specs);
+    }
+
+    /**
+     * Users whose address is in the given city, matched exactly
+     */
+    public static Specification<UserEntity> livesIn(String city) {
+        return (root, query, cb) -> referencesAny(root, query, cb, "address", AddressEntity.class, "city", city);
+    }
+
+    /**
+     * Users working at the company with the given name, matched exactly
+     */
+    public static Specification<UserEntity> worksAt(String companyName) {
+        return (root, query, cb) -> referencesAny(root, query, cb, "company", CompanyEntity.class, "name", companyName);
+    }
+
+    /**
+     * Users whose name starts with the given prefix, matched case-sensitively
+     */
+    public static Specification<UserEntity> nameStartsWith(String prefix) {
+        return (root, query, cb) -> startsWith(cb, root.get("name"), prefix);
+    }
+
+    /**
+     * Users whose username starts with the given prefix, ignoring case
+     */
+    public static Specification<UserEntity> usernameStartsWith(String prefix) {
+        return (root, query, cb) -> startsWith(cb, root.get("usernameKey"), UserEntity.normalizeKey(prefix));
+    }
+
+    // A subquery on the foreign key rather than a join: next to the outer joins that fetch the
+    // associations, a join would keep users first in the plan and scan it in id order
+    private static <T> Predicate referencesAny(Root<UserEntity> root, CriteriaQuery<?> query, CriteriaBuilder cb,
+                                               String association, Class<T> type, String column, String value) {
+        Subquery<Long> ids = query.subquery(Long.class);
+        Root<T> target = ids.from(type);
+        ids.select(target.get("id")).where(cb.equal(target.get(column), value));
+        return root.get(association).get("id").in(ids);
+    }
+
+    private static Predicate startsWith(CriteriaBuilder cb, Expression<String> column, String prefix) {
+        return cb.like(column, escapeLike(prefix) + "%", LIKE_ESCAPE);
+    }
+
+    // Wildcards in the prefix are matched literally
+    static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 4);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package com.test.restful.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * JSON Merge Patch (RFC 7396) applied to Jackson trees
+ */
+final class JsonMergePatch {
+
+    private JsonMergePatch() {
+    }
+
+    /**
+     * Applies the patch to the target in place: objects are merged recursively, null removes
+     * a member and any other value replaces it
+     *
+     * @param target Document to patch
+     * @param patch Patch object
+     */
+    static void apply(ObjectNode target, JsonNode patch) {
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey();
+            JsonNode value = field.getValue();
+            if (value.isNull()) {
+                target.remove(name);
+            } else if (value.isObject()) {
+                JsonNode existing = target.get(name);
+                ObjectNode merged = existing != null && existing.isObject()
+                        ? (ObjectNode) existing
+                        : target.putObject(name);
+                apply(merged, value);
+            } else {
+                target.set(name, value);
+            }
+        }
+    }
+}
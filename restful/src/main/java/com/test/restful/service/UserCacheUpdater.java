@@ -0,0 +1,97 @@
+package com.test.restful.service;
+
+import com.test.restful.config.CacheConfig;
+import com.test.restful.config.SingleFlight;
+import com.test.restful.config.VersionedUserCache;
+import com.test.restful.entity.UserEntity;
+import com.test.restful.model.User;
+import com.test.restful.repository.UserIdentity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+
+/**
+ * Brings the per-user cache entries of a changed user up to date once the transaction commits:
+ * its entry by id and its username and email lookups.
+ *
+ * In write-through mode, the default, a created or updated user is put under its id, username
+ * and email, so the read that follows a write is a cache hit. Otherwise the entries are only
+ * evicted. Users created by a bulk import are only evicted either way, so an import does not push
+ * every row it writes into the regions. Lookups under a previous username or email are always
+ * evicted, as are all entries of deleted users.
+ *
+ * Working after commit, rather than through {@code @CachePut} on the transactional method, means a
+ * rolled-back write never reaches the cache. The regions keep the newest version when writes and
+ * reads race, and evicted entries are not filled again by reads that loaded the user before the
+ * commit (see {@link VersionedUserCache}). A by-id load still in flight from before the commit is
+ * neither shared with reads arriving after it nor cached.
+ */
+@Component
+public class UserCacheUpdater {
+
+    private final VersionedUserCache users;
+    private final VersionedUserCache usersByUsername;
+    private final VersionedUserCache usersByEmail;
+    private final SingleFlight<Long, Optional<User>> userLoads;
+    private final boolean writeThrough;
+
+    @Autowired
+    public UserCacheUpdater(CacheManager cacheManager, SingleFlight<Long, Optional<User>> userLoads,
+                            @Value("${app.cache.users.write-through:true}") boolean writeThrough) {
+        this.users = (VersionedUserCache) cacheManager.getCache(CacheConfig.USERS);
+        this.usersByUsername = (VersionedUserCache) cacheManager.getCache(CacheConfig.USERS_BY_USERNAME);
+        this.usersByEmail = (VersionedUserCache) cacheManager.getCache(CacheConfig.USERS_BY_EMAIL);
+        this.userLoads = userLoads;
+        this.writeThrough = writeThrough;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        userLoads.forget(event.getUserId());
+
+        Long id = event.getUserId();
+        UserIdentity previous = event.getPrevious();
+        User user = event.getUser();
+        if (user == null) {
+            users.evictDeleted(id, id);
+            if (previous != null) {
+                evict(previous.username(), previous.email(), id, Long.MAX_VALUE);
+            }
+            return;
+        }
+
+        long version = user.getVersion() == null ? 0 : user.getVersion();
+        if (previous != null) {
+            evict(previous.username(), previous.email(), id, version);
+        }
+        if (writeThrough && !event.isImported()) {
+            users.put(id, user);
+            put(usersByUsername, user.getUsername(), user);
+            put(usersByEmail, user.getEmail(), user);
+        } else {
+            users.evictBefore(id, id, version);
+            evict(user.getUsername(), user.getEmail(), id, version);
+        }
+    }
+
+    private static void put(Cache cache, String key, User user) {
+        if (key != null) {
+            cache.put(UserEntity.normalizeKey(key), user);
+        }
+    }
+
+    // Lookups the user held before the given version, not to be filled again by reads that loaded it earlier
+    private void evict(String username, String email, Long id, long version) {
+        if (username != null) {
+            usersByUsername.evictBefore(UserEntity.normalizeKey(username), id, version);
+        }
+        if (email != null) {
+            usersByEmail.evictBefore(UserEntity.normalizeKey(email), id, version);
+        }
+    }
+}
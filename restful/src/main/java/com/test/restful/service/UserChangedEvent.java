@@ -0,0 +1,82 @@
+package com.test.restful.service;
+
+import com.test.restful.model.User;
+import com.test.restful.repository.UserIdentity;
+
+/**
+ * Event published by {@link UserService} whenever a user is created, updated or deleted.
+ * Listeners keeping derived views of the users in sync receive it after the transaction commits.
+ */
+public class UserChangedEvent {
+
+    public enum Type {
+        UPSERTED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Long userId;
+    private final User user;
+    private final UserIdentity previous;
+    private final boolean imported;
+
+    private UserChangedEvent(Type type, Long userId, User user, UserIdentity previous, boolean imported) {
+        this.type = type;
+        this.userId = userId;
+        this.user = user;
+        this.previous = previous;
+        this.imported = imported;
+    }
+
+    public static UserChangedEvent upserted(User user) {
+        return new UserChangedEvent(Type.UPSERTED, user.getId(), user, null, false);
+    }
+
+    /**
+     * Creation by a bulk import, which invalidates the user list snapshot once per chunk instead
+     */
+    public static UserChangedEvent imported(User user) {
+        return new UserChangedEvent(Type.UPSERTED, user.getId(), user, null, true);
+    }
+
+    public static UserChangedEvent updated(User user, UserIdentity previous) {
+        return new UserChangedEvent(Type.UPSERTED, user.getId(), user, previous, false);
+    }
+
+    public static UserChangedEvent deleted(Long userId) {
+        return deleted(userId, null);
+    }
+
+    public static UserChangedEvent deleted(Long userId, UserIdentity previous) {
+        return new UserChangedEvent(Type.DELETED, userId, null, previous, false);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return the user as it was written, or null for deletions
+     */
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * @return username and email before the change, or null for creations
+     */
+    public UserIdentity getPrevious() {
+        return previous;
+    }
+
+    /**
+     * @return true if the user was created by a bulk import
+     */
+    public boolean isImported() {
+        return imported;
+    }
+}
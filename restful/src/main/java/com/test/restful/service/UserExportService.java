@@ -0,0 +1,78 @@
+package com.test.restful.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.test.restful.entity.UserEntity;
+import com.test.restful.mapper.UserMapper;
+import com.test.restful.repository.UserJpaRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Service exporting all users as newline-delimited JSON.
+ *
+ * Rows are read through a database cursor and written as they arrive; each entity is detached
+ * once written, so heap use does not grow with the size of the table.
+ */
+@Service
+public class UserExportService {
+    private static final Logger logger = LoggerFactory.getLogger(UserExportService.class);
+
+    private final UserJpaRepository userRepository;
+    private final UserMapper userMapper;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public UserExportService(UserJpaRepository userRepository, UserMapper userMapper,
+                             EntityManager entityManager, ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes every user to the output stream, one JSON object per line
+     *
+     * @param out Stream to write to, left open
+     * @return Number of users written
+     * @throws IOException if writing fails
+     */
+    @Transactional(readOnly = true)
+    public long exportUsers(OutputStream out) throws IOException {
+        logger.info("Exporting all users");
+
+        long count = 0;
+        try (Stream<UserEntity> users = userRepository.streamAll();
+             SequenceWriter writer = objectMapper.writer()
+                     .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                     .withRootValueSeparator("\n")
+                     .writeValues(out)) {
+            Iterator<UserEntity> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                UserEntity user = iterator.next();
+                writer.write(userMapper.toDto(user));
+                // Detach cascades to address, geo and company
+                entityManager.detach(user);
+                count++;
+            }
+        }
+        if (count > 0) {
+            out.write('\n');
+        }
+
+        logger.info("Exported {} users", count);
+        return count;
+    }
+}
@@ -0,0 +1,235 @@
+package com.test.restful.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.test.restful.entity.UserEntity;
+import com.test.restful.mapper.UserMapper;
+import com.test.restful.model.BulkImportResult;
+import com.test.restful.model.User;
+import com.test.restful.repository.UserJpaRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Service importing users in bulk from a streamed JSON array or NDJSON body.
+ *
+ * Records are parsed one at a time, validated against the {@link User} constraints and written
+ * in chunks, each chunk in its own transaction. The user list cache is invalidated once per chunk.
+ */
+@Service
+public class UserImportService {
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+
+    private final UserJpaRepository userRepository;
+    private final UserMapper userMapper;
+    private final UserListCache userListCache;
+    private final UserUniquenessGuard uniquenessGuard;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    @Autowired
+    public UserImportService(UserJpaRepository userRepository, UserMapper userMapper,
+                             UserListCache userListCache, UserUniquenessGuard uniquenessGuard,
+                             ApplicationEventPublisher eventPublisher,
+                             ObjectMapper objectMapper, Validator validator,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.users.import.chunk-size:500}") int chunkSize,
+                             @Value("${app.users.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.userListCache = userListCache;
+        this.uniquenessGuard = uniquenessGuard;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Imports users from a JSON array or newline-delimited JSON objects
+     *
+     * @param body Request body, read incrementally
+     * @return Import counts and per-record errors
+     * @throws IOException if the body cannot be read
+     */
+    public BulkImportResult importUsers(InputStream body) throws IOException {
+        BulkImportResult result = new BulkImportResult();
+        List<PendingUser> chunk = new ArrayList<>(chunkSize);
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+
+            long index = 0;
+            while (token != null && token != JsonToken.END_ARRAY) {
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(parser);
+                } catch (JsonProcessingException e) {
+                    // The stream cannot be resynchronised after a syntax error, so the import stops here
+                    result.setReceived(result.getReceived() + 1);
+                    recordError(result, index, null, List.of("Malformed JSON: " + e.getOriginalMessage()));
+                    break;
+                }
+                result.setReceived(result.getReceived() + 1);
+
+                User user = toValidUser(node, index, result);
+                if (user != null) {
+                    chunk.add(new PendingUser(index, user));
+                    if (chunk.size() >= chunkSize) {
+                        persistChunk(chunk, result);
+                        chunk.clear();
+                    }
+                }
+
+                index++;
+                token = parser.nextToken();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            persistChunk(chunk, result);
+        }
+
+        logger.info("Bulk import finished: {} received, {} imported, {} failed",
+                result.getReceived(), result.getImported(), result.getFailed());
+        return result;
+    }
+
+    private User toValidUser(JsonNode node, long index, BulkImportResult result) {
+        User user;
+        try {
+            user = objectMapper.treeToValue(node, User.class);
+        } catch (JsonProcessingException e) {
+            recordError(result, index, node.path("username").asText(null), List.of(e.getOriginalMessage()));
+            return null;
+        }
+
+        Set<ConstraintViolation<User>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            List<String> messages = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .toList();
+            recordError(result, index, user.getUsername(), messages);
+            return null;
+        }
+        return user;
+    }
+
+    private void persistChunk(List<PendingUser> chunk, BulkImportResult result) {
+        ChunkOutcome outcome;
+        try {
+            outcome = transactionTemplate.execute(status -> saveChunk(chunk));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent writer took one of the usernames or emails; the whole chunk was rolled back
+            logger.error("Bulk import chunk rolled back", e);
+            chunk.forEach(pending -> recordError(result, pending.index(), pending.user().getUsername(),
+                    List.of("Chunk rolled back because of a uniqueness conflict, please retry")));
+            return;
+        }
+
+        outcome.rejected().forEach(rejection -> recordError(result, rejection.pending().index(),
+                rejection.pending().user().getUsername(), List.of(rejection.message())));
+
+        // One invalidation per chunk; the list snapshot ignores the imported events that follow
+        userListCache.invalidate();
+        outcome.saved().forEach(user -> eventPublisher.publishEvent(UserChangedEvent.imported(user)));
+        result.setImported(result.getImported() + outcome.saved().size());
+    }
+
+    private ChunkOutcome saveChunk(List<PendingUser> chunk) {
+        Set<String> takenUsernames = findTaken(UserUniquenessGuard.Field.USERNAME,
+                chunk.stream().map(pending -> UserEntity.normalizeKey(pending.user().getUsername())).toList(),
+                userRepository::findExistingUsernames);
+        Set<String> takenEmails = findTaken(UserUniquenessGuard.Field.EMAIL,
+                chunk.stream().map(pending -> UserEntity.normalizeKey(pending.user().getEmail())).toList(),
+                userRepository::findExistingEmails);
+
+        List<UserEntity> entities = new ArrayList<>(chunk.size());
+        List<Rejection> rejected = new ArrayList<>();
+        for (PendingUser pending : chunk) {
+            User user = pending.user();
+            String usernameKey = UserEntity.normalizeKey(user.getUsername());
+            String emailKey = UserEntity.normalizeKey(user.getEmail());
+            // Accepted keys join the taken sets, which also catches duplicates within the chunk
+            if (takenUsernames.contains(usernameKey)) {
+                rejected.add(new Rejection(pending, "Username already exists: " + user.getUsername()));
+            } else if (takenEmails.contains(emailKey)) {
+                rejected.add(new Rejection(pending, "Email already exists: " + user.getEmail()));
+            } else {
+                takenUsernames.add(usernameKey);
+                takenEmails.add(emailKey);
+                user.setId(null);
+                entities.add(userMapper.toEntity(user));
+            }
+        }
+
+        List<UserEntity> savedEntities = userRepository.saveAll(entities);
+        userRepository.flush();
+        return new ChunkOutcome(savedEntities.stream().map(userMapper::toDto).toList(), rejected);
+    }
+
+    // Only values the filter cannot rule out are looked up; the query is skipped when there are none
+    private Set<String> findTaken(UserUniquenessGuard.Field field, List<String> values,
+                                  Function<Collection<String>, List<String>> lookup) {
+        List<String> candidates = values.stream()
+                .filter(value -> uniquenessGuard.mightBeTaken(field, value))
+                .distinct()
+                .toList();
+        if (candidates.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        Set<String> taken = new HashSet<>(lookup.apply(candidates));
+        candidates.forEach(value -> uniquenessGuard.recordConfirmation(field, taken.contains(value)));
+        return taken;
+    }
+
+    private void recordError(BulkImportResult result, long index, String username, List<String> messages) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new BulkImportResult.RecordError(index, username, messages));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private record PendingUser(long index, User user) {
+    }
+
+    private record Rejection(PendingUser pending, String message) {
+    }
+
+    private record ChunkOutcome(List<User> saved, List<Rejection> rejected) {
+    }
+}
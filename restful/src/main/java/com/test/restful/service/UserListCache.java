@@ -0,0 +1,205 @@
+package com.test.restful.service;
+
+import com.test.restful.config.CacheConfig;
+import com.test.restful.config.SingleFlight;
+import com.test.restful.mapper.UserMapper;
+import com.test.restful.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Holds the full user list as an immutable snapshot ordered by id.
+ *
+ * The snapshot is built once from the database and afterwards patched row by row from
+ * {@link UserChangedEvent}s, so a write never forces the whole table to be re-read and re-mapped.
+ * Concurrent reads finding the snapshot absent share a single load. A revision kept next to the
+ * snapshot identifies the state of the collection, so clients can revalidate it without a load.
+ *
+ * Users are copied on the way in and out, like {@link com.test.restful.config.VersionedUserCache}
+ * does, so a caller changing a user it was given does not change the snapshot.
+ */
+@Component
+public class UserListCache {
+    private static final Logger logger = LoggerFactory.getLogger(UserListCache.class);
+
+    private static final String SNAPSHOT_KEY = "all";
+
+    private final Cache cache;
+    private final SingleFlight<Long, List<User>> loads;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Advanced on every change, guarded by lock; a load racing with a write must not publish its
+    // result. Starts from the clock in microseconds, so values are not reused after a restart
+    private long revision = clockMicros();
+
+    @Autowired
+    public UserListCache(CacheManager cacheManager, SingleFlight<Long, List<User>> userListLoads) {
+        this.cache = cacheManager.getCache(CacheConfig.USER_LIST);
+        this.loads = userListLoads;
+    }
+
+    /**
+     * Returns the cached snapshot, loading and caching it when absent
+     *
+     * @param loader Supplies all users from the database
+     * @return Immutable list of copies of the users, ordered by id
+     */
+    public List<User> getOrLoad(Supplier<List<User>> loader) {
+        List<User> snapshot = current();
+        if (snapshot != null) {
+            return copy(snapshot);
+        }
+
+        // Keyed by revision: a read arriving after a write does not join a load that started before it
+        long observedRevision = revision();
+        // Callers sharing the load each get their own copies
+        return copy(loads.load(observedRevision, () -> {
+            List<User> users = new ArrayList<>(copy(loader.get()));
+            users.sort(Comparator.comparing(User::getId));
+            List<User> loaded = List.copyOf(users);
+
+            lock.lock();
+            try {
+                if (revision == observedRevision) {
+                    cache.put(SNAPSHOT_KEY, loaded);
+                }
+            } finally {
+                lock.unlock();
+            }
+            return loaded;
+        }));
+    }
+
+    /**
+     * @return Copies of the cached users, or null if the snapshot has not been loaded
+     */
+    public List<User> getIfPresent() {
+        List<User> snapshot = current();
+        return snapshot == null ? null : copy(snapshot);
+    }
+
+    /**
+     * Revision of the user collection, answered without loading it: it changes with every create,
+     * update, delete and import, only ever moves forward and is never handed out for two states
+     *
+     * @return Current revision
+     */
+    public long revision() {
+        lock.lock();
+        try {
+            return revision;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the snapshot so the next read rebuilds it
+     */
+    public void invalidate() {
+        lock.lock();
+        try {
+            advanceRevision();
+            cache.evict(SNAPSHOT_KEY);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Patches the affected row of the snapshot once the write is committed; users created by a bulk
+     * import are skipped, the import invalidates the snapshot after each chunk
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.isImported()) {
+            return;
+        }
+        lock.lock();
+        try {
+            advanceRevision();
+            List<User> snapshot = current();
+            if (snapshot == null) {
+                return;
+            }
+
+            List<User> patched = event.getType() == UserChangedEvent.Type.DELETED
+                    ? remove(snapshot, event.getUserId())
+                    : upsert(snapshot, event.getUser());
+            cache.put(SNAPSHOT_KEY, patched);
+            logger.debug("Patched user list snapshot for user {} ({})", event.getUserId(), event.getType());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<User> current() {
+        return cache.get(SNAPSHOT_KEY, List.class);
+    }
+
+    // Caller holds lock
+    private void advanceRevision() {
+        revision = Math.max(revision + 1, clockMicros());
+    }
+
+    private static long clockMicros() {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+    }
+
+    private static List<User> copy(List<User> users) {
+        return users.stream().map(UserMapper::copy).toList();
+    }
+
+    private static List<User> upsert(List<User> snapshot, User user) {
+        int index = indexOf(snapshot, user.getId());
+        List<User> rows = new ArrayList<>(snapshot);
+        if (index >= 0) {
+            rows.set(index, UserMapper.copy(user));
+        } else {
+            rows.add(-index - 1, UserMapper.copy(user));
+        }
+        return List.copyOf(rows);
+    }
+
+    private static List<User> remove(List<User> snapshot, Long id) {
+        int index = indexOf(snapshot, id);
+        if (index < 0) {
+            return snapshot;
+        }
+        List<User> rows = new ArrayList<>(snapshot);
+        rows.remove(index);
+        return List.copyOf(rows);
+    }
+
+    // Binary search over the id-ordered snapshot, same contract as Collections.binarySearch
+    private static int indexOf(List<User> snapshot, Long id) {
+        int low = 0;
+        int high = snapshot.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = snapshot.get(mid).getId().compareTo(id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
@@ -0,0 +1,376 @@
+package com.test.restful.service;
+
+import com.test.restful.model.Company;
+import com.test.restful.model.User;
+import com.test.restful.repository.UserJpaRepository;
+import com.test.restful.repository.UserSearchDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over the name, username, company catch phrase and company bs of every user.
+ *
+ * Text is split into lower-cased letter and digit tokens. Each token maps to the sorted ids of the
+ * users containing it, kept in a primitive array next to a bit mask of the fields it occurs in. A
+ * query token matches the index tokens equal to it or starting with it; users are scored by the
+ * weights of the matched fields, exact matches counting double, and returned best first.
+ *
+ * The index is built from the table once the application is ready and kept in sync from
+ * {@link UserChangedEvent}s. Until it is built, searches find nothing.
+ */
+@Component
+public class UserSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MAX_QUERY_TOKENS = 10;
+    // Bounds the work of short prefixes such as "a", which match a large part of the dictionary
+    private static final int MAX_PREFIX_EXPANSIONS = 100;
+
+    /**
+     * A matching user and its relevance
+     */
+    public record Hit(Long userId, double score) {
+    }
+
+    enum Field {
+        NAME(3),
+        USERNAME(4),
+        CATCH_PHRASE(1),
+        BS(1);
+
+        private final int weight;
+
+        Field(int weight) {
+            this.weight = weight;
+        }
+
+        int bit() {
+            return 1 << ordinal();
+        }
+
+        static int weight(int fieldMask) {
+            int weight = 0;
+            for (Field field : values()) {
+                if ((fieldMask & field.bit()) != 0) {
+                    weight += field.weight;
+                }
+            }
+            return weight;
+        }
+    }
+
+    private final UserJpaRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    // Guarded by lock. The index is null until built; while a rebuild runs, changes are applied to
+    // both indexes and their ids recorded, so the rebuild does not overwrite them with older rows
+    private Index index;
+    private Index building;
+    private final Set<Long> changedWhileBuilding = new HashSet<>();
+
+    @Autowired
+    public UserSearchIndex(UserJpaRepository userRepository, PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Builds the index from the users table
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the index from the users table and swaps it in; searches keep using the old index meanwhile
+     *
+     * @return Number of users indexed
+     */
+    public int rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            Index next = new Index();
+            lock.writeLock().lock();
+            try {
+                building = next;
+                changedWhileBuilding.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<UserSearchDocument> documents = userRepository.streamSearchDocuments()) {
+                        documents.forEach(document -> {
+                            Map<String, Integer> terms = terms(document.name(), document.username(),
+                                    document.catchPhrase(), document.bs());
+                            lock.writeLock().lock();
+                            try {
+                                if (!changedWhileBuilding.contains(document.id())) {
+                                    next.put(document.id(), terms);
+                                }
+                            } finally {
+                                lock.writeLock().unlock();
+                            }
+                        });
+                    }
+                });
+
+                lock.writeLock().lock();
+                try {
+                    index = next;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    building = null;
+                    changedWhileBuilding.clear();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+
+            logger.info("Built search index of {} users and {} terms in {} ms",
+                    next.documents.size(), next.postings.size(), (System.nanoTime() - start) / 1_000_000);
+            return next.documents.size();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Finds the users matching any of the query's tokens
+     *
+     * @param query Free text
+     * @param limit Maximum number of hits
+     * @return Hits ordered by descending score, then ascending id
+     */
+    public List<Hit> search(String query, int limit) {
+        Set<String> tokens = new LinkedHashSet<>();
+        tokenize(query, token -> {
+            tokens.add(token);
+            return tokens.size() < MAX_QUERY_TOKENS;
+        });
+        if (tokens.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                return List.of();
+            }
+            for (String token : tokens) {
+                // A user counts once per query token, with its best matching term
+                Map<Long, Double> best = new HashMap<>();
+                int expansions = 0;
+                for (Map.Entry<String, Postings> entry : index.postings.tailMap(token, true).entrySet()) {
+                    String term = entry.getKey();
+                    if (!term.startsWith(token) || expansions++ == MAX_PREFIX_EXPANSIONS) {
+                        break;
+                    }
+                    double factor = term.length() == token.length() ? 1.0 : 0.5;
+                    Postings postings = entry.getValue();
+                    for (int i = 0; i < postings.size; i++) {
+                        best.merge(postings.ids[i], Field.weight(postings.fields[i]) * factor, Math::max);
+                    }
+                }
+                best.forEach((userId, score) -> scores.merge(userId, score, Double::sum));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return topHits(scores, limit);
+    }
+
+    /**
+     * Indexes a created or updated user, or drops a deleted one, once the write is committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        Long userId = event.getUserId();
+        Map<String, Integer> terms = null;
+        if (event.getType() == UserChangedEvent.Type.UPSERTED) {
+            User user = event.getUser();
+            Company company = user.getCompany();
+            terms = terms(user.getName(), user.getUsername(),
+                    company == null ? null : company.getCatchPhrase(),
+                    company == null ? null : company.getBs());
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Index target : new Index[]{index, building}) {
+                if (target == null) {
+                    continue;
+                }
+                if (terms == null) {
+                    target.remove(userId);
+                } else {
+                    target.put(userId, terms);
+                }
+            }
+            if (building != null) {
+                changedWhileBuilding.add(userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static List<Hit> topHits(Map<Long, Double> scores, int limit) {
+        Comparator<Hit> ranking = Comparator.comparingDouble(Hit::score).reversed()
+                .thenComparing(Hit::userId);
+        // Min-heap of the best hits so far, its head being the worst of them
+        PriorityQueue<Hit> top = new PriorityQueue<>(Math.min(limit, scores.size()) + 1, ranking.reversed());
+        scores.forEach((userId, score) -> {
+            top.add(new Hit(userId, score));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        });
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(ranking);
+        return hits;
+    }
+
+    // Term to mask of the fields it occurs in
+    private static Map<String, Integer> terms(String name, String username, String catchPhrase, String bs) {
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, name, Field.NAME);
+        addTerms(terms, username, Field.USERNAME);
+        addTerms(terms, catchPhrase, Field.CATCH_PHRASE);
+        addTerms(terms, bs, Field.BS);
+        return terms;
+    }
+
+    private static void addTerms(Map<String, Integer> terms, String text, Field field) {
+        tokenize(text, token -> {
+            terms.merge(token, field.bit(), (a, b) -> a | b);
+            return true;
+        });
+    }
+
+    private static void tokenize(String text, Predicate<String> consumer) {
+        if (text == null) {
+            return;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty() && !consumer.test(token)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Dictionary of terms and their postings; not thread-safe
+     */
+    private static final class Index {
+        // Sorted, so the terms starting with a prefix are a contiguous range
+        private final TreeMap<String, Postings> postings = new TreeMap<>();
+        // Terms of each user, to find its postings on update and delete
+        private final Map<Long, String[]> documents = new HashMap<>();
+
+        void put(long userId, Map<String, Integer> terms) {
+            remove(userId);
+            String[] indexed = new String[terms.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> term : terms.entrySet()) {
+                Postings termPostings = postings.computeIfAbsent(term.getKey(), key -> new Postings());
+                termPostings.add(userId, term.getValue());
+                indexed[i++] = term.getKey();
+            }
+            documents.put(userId, indexed);
+        }
+
+        void remove(long userId) {
+            String[] terms = documents.remove(userId);
+            if (terms == null) {
+                return;
+            }
+            for (String term : terms) {
+                Postings termPostings = postings.get(term);
+                if (termPostings != null && termPostings.remove(userId) && termPostings.size == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorted user ids with the field mask of each, in parallel primitive arrays
+     */
+    private static final class Postings {
+        private long[] ids = new long[2];
+        private byte[] fields = new byte[2];
+        private int size;
+
+        void add(long userId, int fieldMask) {
+            int i = Arrays.binarySearch(ids, 0, size, userId);
+            if (i >= 0) {
+                fields[i] |= (byte) fieldMask;
+                return;
+            }
+            i = -i - 1;
+            if (size == ids.length) {
+                int capacity = size + (size >> 1) + 1;
+                ids = Arrays.copyOf(ids, capacity);
+                fields = Arrays.copyOf(fields, capacity);
+            }
+            // Ids mostly arrive in ascending order, so this is usually an append
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            System.arraycopy(fields, i, fields, i + 1, size - i);
+            ids[i] = userId;
+            fields[i] = (byte) fieldMask;
+            size++;
+        }
+
+        boolean remove(long userId) {
+            int i = Arrays.binarySearch(ids, 0, size, userId);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            System.arraycopy(fields, i + 1, fields, i, size - i - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.test.restful.service;
+
+import com.test.restful.entity.UserEntity;
+import com.test.restful.mapper.UserMapper;
+import com.test.restful.model.UserDistance;
+import com.test.restful.model.UserSearchHit;
+import com.test.restful.repository.UserJpaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service answering free-text and radius user searches from the {@link UserSearchIndex} and the
+ * {@link UserSpatialIndex}.
+ *
+ * The indexes yield the ranked ids; only the users of the requested page are then loaded, in one select.
+ */
+@Service
+public class UserSearchService {
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchService.class);
+
+    private final UserSearchIndex searchIndex;
+    private final UserSpatialIndex spatialIndex;
+    private final UserJpaRepository userRepository;
+    private final UserMapper userMapper;
+
+    @Autowired
+    public UserSearchService(UserSearchIndex searchIndex, UserSpatialIndex spatialIndex,
+                             UserJpaRepository userRepository, UserMapper userMapper) {
+        this.searchIndex = searchIndex;
+        this.spatialIndex = spatialIndex;
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+    }
+
+    /**
+     * Searches the name, username, company catch phrase and company bs of all users
+     * 
+     * @param query Free text; each word also matches words it is a prefix of
+     * @param limit Maximum number of results
+     * @return Matching users, most relevant first
+     */
+    @Transactional(readOnly = true)
+    public List<UserSearchHit> search(String query, int limit) {
+        logger.info("Searching users for: {}", query);
+
+        List<UserSearchIndex.Hit> hits = searchIndex.search(query, limit);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, UserEntity> users = loadUsers(hits.stream().map(UserSearchIndex.Hit::userId).toList());
+
+        List<UserSearchHit> results = new ArrayList<>(hits.size());
+        for (UserSearchIndex.Hit hit : hits) {
+            UserEntity user = users.get(hit.userId());
+            // Skips users deleted since the index was read
+            if (user != null) {
+                results.add(new UserSearchHit(userMapper.toDto(user), hit.score()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Finds the users whose address lies within a radius of a point
+     * 
+     * @param lat Latitude of the point in decimal degrees
+     * @param lng Longitude of the point in decimal degrees
+     * @param radiusKm Radius in kilometres
+     * @param limit Maximum number of results
+     * @return The nearest users within the radius, nearest first
+     */
+    @Transactional(readOnly = true)
+    public List<UserDistance> findNear(double lat, double lng, double radiusKm, int limit) {
+        logger.info("Finding users within {} km of {}, {}", radiusKm, lat, lng);
+
+        List<UserSpatialIndex.Hit> hits = spatialIndex.findNear(lat, lng, radiusKm, limit);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, UserEntity> users = loadUsers(hits.stream().map(UserSpatialIndex.Hit::userId).toList());
+
+        List<UserDistance> results = new ArrayList<>(hits.size());
+        for (UserSpatialIndex.Hit hit : hits) {
+            UserEntity user = users.get(hit.userId());
+            // Skips users deleted since the index was read
+            if (user != null) {
+                results.add(new UserDistance(userMapper.toDto(user), hit.distanceKm()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Rebuilds the search index from the database
+     * 
+     * @return Number of users indexed
+     */
+    public int rebuildIndex() {
+        logger.info("Rebuilding user search index");
+        return searchIndex.rebuild();
+    }
+
+    private Map<Long, UserEntity> loadUsers(List<Long> ids) {
+        return userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(UserEntity::getId, Function.identity()));
+    }
+}
@@ -1,24 +1,57 @@
 package com.test.restful.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.test.restful.config.CacheConfig;
+import com.test.restful.config.SingleFlight;
 import com.test.restful.entity.UserEntity;
+import com.test.restful.exception.BadRequestException;
+import com.test.restful.exception.PreconditionFailedException;
 import com.test.restful.exception.ResourceNotFoundException;
 import com.test.restful.exception.UserAlreadyExistsException;
 import com.test.restful.mapper.UserMapper;
 import com.test.restful.model.User;
+import com.test.restful.model.UserBatch;
+import com.test.restful.model.UserField;
+import com.test.restful.model.UserSearchCriteria;
+import com.test.restful.repository.UserDeletionTarget;
+import com.test.restful.repository.UserIdentity;
 import com.test.restful.repository.UserJpaRepository;
+import com.test.restful.repository.UserSpecifications;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing user operations
@@ -29,11 +62,29 @@ public class UserService {
     
     private final UserJpaRepository userRepository;
     private final UserMapper userMapper;
+    private final UserListCache userListCache;
+    private final UserUniquenessGuard uniquenessGuard;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final CacheManager cacheManager;
+    private final SingleFlight<Long, Optional<User>> userLoads;
 
     @Autowired
-    public UserService(UserJpaRepository userRepository, UserMapper userMapper) {
+    public UserService(UserJpaRepository userRepository, UserMapper userMapper,
+                       UserListCache userListCache, UserUniquenessGuard uniquenessGuard,
+                       ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper,
+                       Validator validator, CacheManager cacheManager,
+                       SingleFlight<Long, Optional<User>> userLoads) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
+        this.userListCache = userListCache;
+        this.uniquenessGuard = uniquenessGuard;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.cacheManager = cacheManager;
+        this.userLoads = userLoads;
     }
 
     /**
@@ -49,34 +100,266 @@ public class UserService {
                 .map(userMapper::toDto);
     }
 
+    /**
+     * Searches users by city, company and name/username prefix
+     * 
+     * @param criteria Filters to apply
+     * @param pageable Pagination information
+     * @return Page of matching users
+     */
+    @Transactional(readOnly = true)
+    public Page<User> searchUsers(UserSearchCriteria criteria, Pageable pageable) {
+        logger.info("Searching users: city={}, company={}, namePrefix={}, usernamePrefix={}, {}",
+                criteria.getCity(), criteria.getCompany(), criteria.getNamePrefix(),
+                criteria.getUsernamePrefix(), pageable);
+        return userRepository.findAll(UserSpecifications.matching(criteria), pageable)
+                .map(userMapper::toDto);
+    }
+
+    /**
+     * Retrieves the users following the given ID using a keyset seek, without a count query
+     * 
+     * @param lastId ID of the last user already seen, or null for the first page
+     * @param size Maximum number of users to return
+     * @return Slice of users ordered by ID
+     */
+    @Transactional(readOnly = true)
+    public Slice<User> getUsersAfter(Long lastId, int size) {
+        logger.info("Retrieving {} users after ID: {}", size, lastId);
+        long seekFrom = lastId == null ? Long.MIN_VALUE : lastId;
+        return userRepository.findByIdGreaterThan(seekFrom, PageRequest.of(0, size, Sort.by("id")))
+                .map(userMapper::toDto);
+    }
+
+    /**
+     * Counts all users
+     * 
+     * @return Number of users
+     */
+    @Transactional(readOnly = true)
+    public long countUsers() {
+        return userRepository.count();
+    }
+
     /**
      * Retrieves all users
      * 
-     * @return List of all users
+     * @return Immutable snapshot of all users ordered by ID
      */
     @Transactional(readOnly = true)
-    @Cacheable(value = "users")
     public List<User> getAllUsers() {
         logger.info("Retrieving all users");
-        return userRepository.findAll().stream()
+        return userListCache.getOrLoad(() -> userRepository.findAll().stream()
                 .map(userMapper::toDto)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     /**
-     * Retrieves a user by ID
+     * Revision of the user list, for conditional requests; read without loading any user
+     * 
+     * @return Revision that changes whenever the list does and never moves backwards
+     */
+    public long getUsersRevision() {
+        return userListCache.revision();
+    }
+
+    /**
+     * Retrieves a user by ID; concurrent cache misses for the same ID share one query.
+     * 
+     * The loaded user is cached only if no change to it committed while the query ran: the
+     * change forgets the load in flight, whose result may predate it.
      * 
      * @param id User ID
      * @return Optional containing the user if found
      */
     @Transactional(readOnly = true)
-    @Cacheable(value = "users", key = "#id")
     public Optional<User> getUserById(Long id) {
+        Cache cache = cacheManager.getCache(CacheConfig.USERS);
+        User cached = cache.get(id, User.class);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
         logger.info("Retrieving user with ID: {}", id);
-        return userRepository.findById(id)
+        return userLoads.load(id, () -> userRepository.findById(id).map(userMapper::toDto),
+                loaded -> loaded.ifPresent(user -> cache.put(id, user)));
+    }
+
+    /**
+     * Retrieves several users by ID, answering from the by-id cache where possible and loading the
+     * others with one query.
+     * 
+     * Misses go through the same per-ID loads as {@link #getUserById(Long)}: an ID already being
+     * loaded shares that load, and a loaded user is cached only if no change to it committed while
+     * the query ran.
+     * 
+     * @param ids User IDs, without duplicates
+     * @return The users found, in the order of the IDs, and the IDs of the users not found
+     */
+    @Transactional(readOnly = true)
+    public UserBatch<User> getUsersByIds(Collection<Long> ids) {
+        Cache cache = cacheManager.getCache(CacheConfig.USERS);
+        Map<Long, User> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : ids) {
+            User cached = cache.get(id, User.class);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            Map<Long, Optional<User>> loaded = userLoads.loadAll(misses, this::findUsersById,
+                    (id, user) -> user.ifPresent(value -> cache.put(id, value)));
+            loaded.forEach((id, user) -> user.ifPresent(value -> found.put(id, value)));
+        }
+        logger.info("Retrieved {} of {} users, {} from the cache", found.size(), ids.size(), ids.size() - misses.size());
+
+        List<User> users = new ArrayList<>(found.size());
+        List<Long> notFound = new ArrayList<>();
+        for (Long id : ids) {
+            User user = found.get(id);
+            if (user != null) {
+                users.add(user);
+            } else {
+                notFound.add(id);
+            }
+        }
+        return new UserBatch<>(users, notFound);
+    }
+
+    // One query for all the IDs; those without a user map to an empty Optional
+    private Map<Long, Optional<User>> findUsersById(List<Long> ids) {
+        Map<Long, Optional<User>> users = new HashMap<>();
+        for (Long id : ids) {
+            users.put(id, Optional.empty());
+        }
+        for (UserEntity entity : userRepository.findAllById(ids)) {
+            users.put(entity.getId(), Optional.of(userMapper.toDto(entity)));
+        }
+        return users;
+    }
+
+    /**
+     * Retrieves a user by username, ignoring case
+     * 
+     * @param username Username
+     * @return Optional containing the user if found
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(value = CacheConfig.USERS_BY_USERNAME,
+            key = "T(com.test.restful.entity.UserEntity).normalizeKey(#username)", unless = "#result == null")
+    public Optional<User> getUserByUsername(String username) {
+        logger.info("Retrieving user with username: {}", username);
+        return userRepository.findByUsernameKey(UserEntity.normalizeKey(username))
+                .map(userMapper::toDto);
+    }
+
+    /**
+     * Retrieves a user by email, ignoring case
+     * 
+     * @param email Email
+     * @return Optional containing the user if found
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(value = CacheConfig.USERS_BY_EMAIL,
+            key = "T(com.test.restful.entity.UserEntity).normalizeKey(#email)", unless = "#result == null")
+    public Optional<User> getUserByEmail(String email) {
+        logger.info("Retrieving user with email: {}", email);
+        return userRepository.findByEmailKey(UserEntity.normalizeKey(email))
                 .map(userMapper::toDto);
     }
 
+    /**
+     * Retrieves all users, loading only the requested fields
+     * 
+     * @param fields Fields to select
+     * @return Users ordered by ID, as maps of the requested fields
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllUsers(Set<UserField> fields) {
+        logger.info("Retrieving all users with fields: {}", fields);
+        return userRepository.findAllProjected(fields).stream()
+                .map(tuple -> userMapper.toFieldMap(tuple, fields))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Retrieves a page of users, loading only the requested fields
+     * 
+     * @param fields Fields to select
+     * @param pageable Pagination information
+     * @return Page of users as maps of the requested fields
+     */
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getAllUsers(Set<UserField> fields, Pageable pageable) {
+        logger.info("Retrieving users with fields: {} and pagination: {}", fields, pageable);
+        return userRepository.findAllProjected(fields, pageable)
+                .map(tuple -> userMapper.toFieldMap(tuple, fields));
+    }
+
+    /**
+     * Retrieves the users following the given ID, loading only the requested fields
+     * 
+     * @param lastId ID of the last user already seen, or null for the first page
+     * @param fields Fields to select
+     * @param size Maximum number of users to return
+     * @return Slice of users ordered by ID, as maps of the requested fields
+     */
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> getUsersAfter(Long lastId, Set<UserField> fields, int size) {
+        logger.info("Retrieving {} users after ID: {} with fields: {}", size, lastId, fields);
+        return userRepository.findProjectedAfter(lastId, fields, size)
+                .map(tuple -> userMapper.toFieldMap(tuple, fields));
+    }
+
+    /**
+     * Retrieves a user by ID, loading only the requested fields
+     * 
+     * @param id User ID
+     * @param fields Fields to select
+     * @return Optional containing the requested fields of the user if found
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> getUserById(Long id, Set<UserField> fields) {
+        logger.info("Retrieving user with ID: {} and fields: {}", id, fields);
+        return userRepository.findProjectedById(id, fields)
+                .map(tuple -> userMapper.toFieldMap(tuple, fields));
+    }
+
+    /**
+     * Checks whether a username is already registered
+     * 
+     * @param username Username to check
+     * @return true if a user has this username
+     */
+    @Transactional(readOnly = true)
+    public boolean isUsernameTaken(String username) {
+        if (!uniquenessGuard.mightBeTaken(UserUniquenessGuard.Field.USERNAME, username)) {
+            return false;
+        }
+        boolean taken = userRepository.existsByUsernameKey(UserEntity.normalizeKey(username));
+        uniquenessGuard.recordConfirmation(UserUniquenessGuard.Field.USERNAME, taken);
+        return taken;
+    }
+
+    /**
+     * Checks whether an email is already registered
+     * 
+     * @param email Email to check
+     * @return true if a user has this email
+     */
+    @Transactional(readOnly = true)
+    public boolean isEmailTaken(String email) {
+        if (!uniquenessGuard.mightBeTaken(UserUniquenessGuard.Field.EMAIL, email)) {
+            return false;
+        }
+        boolean taken = userRepository.existsByEmailKey(UserEntity.normalizeKey(email));
+        uniquenessGuard.recordConfirmation(UserUniquenessGuard.Field.EMAIL, taken);
+        return taken;
+    }
+
     /**
      * Creates a new user
      * 
@@ -85,25 +368,21 @@ public class UserService {
      * @throws UserAlreadyExistsException if username or email already exists
      */
     @Transactional
-    @CacheEvict(value = "users", allEntries = true)
     public User createUser(User user) {
         logger.info("Creating new user with username: {}", user.getUsername());
         
-        // Validate username uniqueness
-        if (userRepository.existsByUsername(user.getUsername())) {
-            logger.error("Username already exists: {}", user.getUsername());
-            throw new UserAlreadyExistsException("Username already exists: " + user.getUsername());
-        }
-        
-        // Validate email uniqueness
-        if (userRepository.existsByEmail(user.getEmail())) {
-            logger.error("Email already exists: {}", user.getEmail());
-            throw new UserAlreadyExistsException("Email already exists: " + user.getEmail());
-        }
-        
+        // Uniqueness is enforced by the constraints on the users table: one insert cascade,
+        // no check-then-insert race
         UserEntity userEntity = userMapper.toEntity(user);
-        UserEntity savedEntity = userRepository.save(userEntity);
-        return userMapper.toDto(savedEntity);
+        UserEntity savedEntity;
+        try {
+            savedEntity = userRepository.saveAndFlush(userEntity);
+        } catch (DataIntegrityViolationException e) {
+            throw translateUniqueViolation(e, user);
+        }
+        User savedUser = userMapper.toDto(savedEntity);
+        eventPublisher.publishEvent(UserChangedEvent.upserted(savedUser));
+        return savedUser;
     }
 
     /**
@@ -116,30 +395,112 @@ public class UserService {
      * @throws UserAlreadyExistsException if username or email already exists
      */
     @Transactional
-    @CacheEvict(value = "users", allEntries = true)
     public User updateUser(Long id, User userDetails) {
+        return updateUser(id, userDetails, null);
+    }
+
+    /**
+     * Updates an existing user if it is still at one of the expected versions.
+     * 
+     * No lock is taken: the version is compared on load and again by the update statement,
+     * so a concurrent change between the two fails the flush instead of being overwritten.
+     * 
+     * @param id User ID
+     * @param userDetails Updated user details
+     * @param expectedVersions Versions the client may have based its change on, or null to skip the check
+     * @return Updated user
+     * @throws ResourceNotFoundException if user not found
+     * @throws PreconditionFailedException if the user is at none of the expected versions
+     * @throws UserAlreadyExistsException if username or email already exists
+     */
+    @Transactional
+    public User updateUser(Long id, User userDetails, Collection<Long> expectedVersions) {
         logger.info("Updating user with ID: {}", id);
         
         UserEntity userEntity = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+
+        checkVersion(userEntity, expectedVersions);
         
-        // Check if username is being changed and if it's already taken
-        if (!userEntity.getUsername().equals(userDetails.getUsername()) && 
-                userRepository.existsByUsername(userDetails.getUsername())) {
-            logger.error("Username already exists: {}", userDetails.getUsername());
-            throw new UserAlreadyExistsException("Username already exists: " + userDetails.getUsername());
+        UserIdentity previous = new UserIdentity(userEntity.getUsername(), userEntity.getEmail());
+        userMapper.updateEntityFromDto(userDetails, userEntity);
+        userEntity.touch();
+        // Flush so the incremented version is visible in the returned user and a taken
+        // username or email surfaces here as a constraint violation
+        UserEntity updatedEntity;
+        try {
+            updatedEntity = userRepository.saveAndFlush(userEntity);
+        } catch (DataIntegrityViolationException e) {
+            throw translateUniqueViolation(e, userDetails);
         }
-        
-        // Check if email is being changed and if it's already taken
-        if (!userEntity.getEmail().equals(userDetails.getEmail()) && 
-                userRepository.existsByEmail(userDetails.getEmail())) {
-            logger.error("Email already exists: {}", userDetails.getEmail());
-            throw new UserAlreadyExistsException("Email already exists: " + userDetails.getEmail());
+        User updatedUser = userMapper.toDto(updatedEntity);
+        eventPublisher.publishEvent(UserChangedEvent.updated(updatedUser, previous));
+        return updatedUser;
+    }
+
+    /**
+     * Applies a JSON Merge Patch to a user.
+     * 
+     * Only the fields present in the patch are compared and copied, and the entities are mapped
+     * with dynamic updates, so the UPDATE statements touch just the changed columns of the changed
+     * tables. Username and email uniqueness is therefore only checked when the patch changes them.
+     * 
+     * @param id User ID
+     * @param patch Merge patch object
+     * @param expectedVersions Versions the client may have based its change on, or null to skip the check
+     * @return Patched user
+     * @throws ResourceNotFoundException if user not found
+     * @throws PreconditionFailedException if the user is at none of the expected versions
+     * @throws BadRequestException if the patch is not an object, changes the id or does not bind
+     * @throws jakarta.validation.ConstraintViolationException if the patched user is invalid
+     * @throws UserAlreadyExistsException if the new username or email already exists
+     */
+    @Transactional
+    public User patchUser(Long id, JsonNode patch, Collection<Long> expectedVersions) {
+        logger.info("Patching user with ID: {}", id);
+
+        if (patch == null || !patch.isObject()) {
+            throw new BadRequestException("A merge patch must be a JSON object");
         }
-        
-        userMapper.updateEntityFromDto(userDetails, userEntity);
-        UserEntity updatedEntity = userRepository.save(userEntity);
-        return userMapper.toDto(updatedEntity);
+        JsonNode patchedId = patch.get("id");
+        if (patchedId != null && !patchedId.isNull() && !(patchedId.canConvertToLong() && patchedId.asLong() == id)) {
+            throw new BadRequestException("The id of a user cannot be changed");
+        }
+
+        UserEntity userEntity = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+
+        checkVersion(userEntity, expectedVersions);
+
+        ObjectNode document = objectMapper.valueToTree(userMapper.toDto(userEntity));
+        JsonMergePatch.apply(document, patch);
+        User patched;
+        try {
+            patched = objectMapper.treeToValue(document, User.class);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Invalid patch: " + e.getOriginalMessage());
+        }
+        Set<ConstraintViolation<User>> violations = validator.validate(patched);
+        if (!violations.isEmpty()) {
+            throw new jakarta.validation.ConstraintViolationException(violations);
+        }
+
+        UserIdentity previous = new UserIdentity(userEntity.getUsername(), userEntity.getEmail());
+        if (!userMapper.applyChanges(patched, userEntity)) {
+            // Nothing changed: no statement, same version
+            return userMapper.toDto(userEntity);
+        }
+        userEntity.touch();
+
+        UserEntity updatedEntity;
+        try {
+            updatedEntity = userRepository.saveAndFlush(userEntity);
+        } catch (DataIntegrityViolationException e) {
+            throw translateUniqueViolation(e, patched);
+        }
+        User updatedUser = userMapper.toDto(updatedEntity);
+        eventPublisher.publishEvent(UserChangedEvent.updated(updatedUser, previous));
+        return updatedUser;
     }
 
     /**
@@ -149,15 +510,87 @@ public class UserService {
      * @return true if user was deleted, false otherwise
      */
     @Transactional
-    @CacheEvict(value = "users", allEntries = true)
     public boolean deleteUser(Long id) {
         logger.info("Deleting user with ID: {}", id);
-        
-        if (!userRepository.existsById(id)) {
-            return false;
+        return !deleteUsers(List.of(id)).isEmpty();
+    }
+
+    /**
+     * Deletes users and the address, geo and company rows they own.
+     * 
+     * One projection read collects the owned row ids. The user rows are deleted with one JDBC batch,
+     * whose per-id counts tell which users this call removed, then each owned table is cleared with a
+     * single bulk statement, whatever the number of users. Entities are never loaded.
+     * 
+     * @param ids User IDs
+     * @return IDs of the users that were deleted; the others did not exist
+     */
+    @Transactional
+    public List<Long> deleteUsers(Collection<Long> ids) {
+        logger.info("Deleting {} users", ids.size());
+        if (ids.isEmpty()) {
+            return List.of();
         }
-        
-        userRepository.deleteById(id);
-        return true;
+
+        List<UserDeletionTarget> targets = userRepository.findDeletionTargets(ids);
+        if (targets.isEmpty()) {
+            return List.of();
+        }
+
+        // Per-id affected row counts tell which users this call deleted; the others were deleted concurrently
+        Set<Long> deletedIds = new HashSet<>(userRepository.deleteUsersById(
+                targets.stream().map(UserDeletionTarget::id).toList()));
+        if (deletedIds.size() < targets.size()) {
+            logger.warn("{} of {} users were deleted concurrently", targets.size() - deletedIds.size(), targets.size());
+            targets = targets.stream().filter(target -> deletedIds.contains(target.id())).toList();
+        }
+        if (targets.isEmpty()) {
+            return List.of();
+        }
+        deleteOwnedRows(targets.stream().map(UserDeletionTarget::addressId), userRepository::deleteAddressesByIdIn);
+        deleteOwnedRows(targets.stream().map(UserDeletionTarget::geoId), userRepository::deleteGeosByIdIn);
+        deleteOwnedRows(targets.stream().map(UserDeletionTarget::companyId), userRepository::deleteCompaniesByIdIn);
+
+        targets.forEach(target -> eventPublisher.publishEvent(UserChangedEvent.deleted(target.id(),
+                new UserIdentity(target.username(), target.email()))));
+        return targets.stream().map(UserDeletionTarget::id).toList();
+    }
+
+    private static void checkVersion(UserEntity userEntity, Collection<Long> expectedVersions) {
+        if (expectedVersions != null && !expectedVersions.contains(userEntity.getVersion())) {
+            logger.error("Version mismatch for user {}: expected {}, found {}",
+                    userEntity.getId(), expectedVersions, userEntity.getVersion());
+            throw new PreconditionFailedException("User " + userEntity.getId() + " has been modified since version "
+                    + expectedVersions.stream().map(String::valueOf).collect(Collectors.joining(" or ")));
+        }
+    }
+
+    private static void deleteOwnedRows(Stream<Long> ids, Function<Collection<Long>, Integer> delete) {
+        List<Long> present = ids.filter(Objects::nonNull).toList();
+        if (!present.isEmpty()) {
+            delete.apply(present);
+        }
+    }
+
+    /**
+     * Maps a violation of the username or email constraint to the field that is taken;
+     * any other integrity violation is returned unchanged
+     */
+    private RuntimeException translateUniqueViolation(DataIntegrityViolationException e, User user) {
+        String constraint = e.getCause() instanceof ConstraintViolationException violation
+                ? violation.getConstraintName()
+                : null;
+        if (constraint != null) {
+            String name = constraint.toLowerCase(Locale.ROOT);
+            if (name.contains(UserEntity.USERNAME_CONSTRAINT)) {
+                logger.error("Username already exists: {}", user.getUsername());
+                return new UserAlreadyExistsException("Username already exists: " + user.getUsername());
+            }
+            if (name.contains(UserEntity.EMAIL_CONSTRAINT)) {
+                logger.error("Email already exists: {}", user.getEmail());
+                return new UserAlreadyExistsException("Email already exists: " + user.getEmail());
+            }
+        }
+        return e;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,355 @@
+package com.test.restful.service;
+
+import com.test.restful.mapper.UserMapper;
+import com.test.restful.model.Geo;
+import com.test.restful.model.User;
+import com.test.restful.repository.UserJpaRepository;
+import com.test.restful.repository.UserLocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory grid index over the coordinates of every user's address.
+ *
+ * The globe is divided into cells of a fixed number of degrees. Each cell keeps the ids and
+ * coordinates of its users in primitive arrays. A radius query scans only the cells overlapping
+ * the query's bounding box, wrapping around the antimeridian, and computes great-circle distances
+ * for the users in them.
+ *
+ * The index is built from the table once the application is ready and kept in sync from
+ * {@link UserChangedEvent}s. Until it is built, queries find nothing.
+ */
+@Component
+public class UserSpatialIndex {
+    private static final Logger logger = LoggerFactory.getLogger(UserSpatialIndex.class);
+
+    /**
+     * Mean radius of the Earth
+     */
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    /**
+     * Largest meaningful radius, half the circumference
+     */
+    public static final double MAX_RADIUS_KM = Math.PI * EARTH_RADIUS_KM;
+
+    private static final double KM_PER_DEGREE = MAX_RADIUS_KM / 180;
+
+    /**
+     * A user within the radius and its great-circle distance
+     */
+    public record Hit(Long userId, double distanceKm) {
+    }
+
+    private final UserJpaRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final double cellDegrees;
+    private final int rows;
+    private final int columns;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    // Guarded by lock. The grid is null until built; while a rebuild runs, changes are applied to
+    // both grids and their ids recorded, so the rebuild does not overwrite them with older rows
+    private Grid grid;
+    private Grid building;
+    private final Set<Long> changedWhileBuilding = new HashSet<>();
+
+    @Autowired
+    public UserSpatialIndex(UserJpaRepository userRepository, PlatformTransactionManager transactionManager,
+                            @Value("${app.users.spatial-index.cell-degrees:0.25}") double cellDegrees) {
+        if (!(cellDegrees > 0 && cellDegrees <= 90)) {
+            throw new IllegalArgumentException("Cell size must be between 0 and 90 degrees: " + cellDegrees);
+        }
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cellDegrees = cellDegrees;
+        this.rows = (int) Math.ceil(180 / cellDegrees);
+        this.columns = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    /**
+     * Builds the index from the users table
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the index from the users table and swaps it in; queries keep using the old index meanwhile
+     *
+     * @return Number of users indexed
+     */
+    public int rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            Grid next = new Grid();
+            lock.writeLock().lock();
+            try {
+                building = next;
+                changedWhileBuilding.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<UserLocation> locations = userRepository.streamLocations()) {
+                        locations.forEach(location -> {
+                            lock.writeLock().lock();
+                            try {
+                                if (!changedWhileBuilding.contains(location.id())) {
+                                    next.put(location.id(), location.lat(), location.lng());
+                                }
+                            } finally {
+                                lock.writeLock().unlock();
+                            }
+                        });
+                    }
+                });
+
+                lock.writeLock().lock();
+                try {
+                    grid = next;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    building = null;
+                    changedWhileBuilding.clear();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+
+            logger.info("Built spatial index of {} users in {} ms",
+                    next.cellOf.size(), (System.nanoTime() - start) / 1_000_000);
+            return next.cellOf.size();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Finds the users within a radius of a point
+     *
+     * @param lat Latitude of the point in decimal degrees
+     * @param lng Longitude of the point in decimal degrees
+     * @param radiusKm Radius in kilometres
+     * @param limit Maximum number of hits
+     * @return The nearest users within the radius, nearest first
+     */
+    public List<Hit> findNear(double lat, double lng, double radiusKm, int limit) {
+        if (limit < 1 || radiusKm < 0) {
+            return List.of();
+        }
+
+        double radiusDegrees = Math.min(radiusKm, MAX_RADIUS_KM) / KM_PER_DEGREE;
+        double minLat = Math.max(-90, lat - radiusDegrees);
+        double maxLat = Math.min(90, lat + radiusDegrees);
+        // Widest longitude span of the circle, reached at the bounding box's latitude nearest a pole
+        double widestLat = Math.max(Math.abs(minLat), Math.abs(maxLat));
+        double lngDegrees = widestLat >= 90 ? 180 : radiusDegrees / Math.cos(Math.toRadians(widestLat));
+
+        int firstRow = row(minLat);
+        int lastRow = row(maxLat);
+        int firstColumn;
+        int lastColumn;
+        if (lngDegrees >= 180) {
+            firstColumn = 0;
+            lastColumn = columns - 1;
+        } else {
+            firstColumn = (int) Math.floor((lng - lngDegrees + 180) / cellDegrees);
+            lastColumn = (int) Math.floor((lng + lngDegrees + 180) / cellDegrees);
+            if (lastColumn - firstColumn + 1 >= columns) {
+                firstColumn = 0;
+                lastColumn = columns - 1;
+            }
+        }
+
+        // Haversine term of the radius, so points outside it are rejected without the arcsine
+        double maxHaversine = haversine(Math.min(radiusKm / EARTH_RADIUS_KM, Math.PI));
+        double latRadians = Math.toRadians(lat);
+        double cosLat = Math.cos(latRadians);
+        Comparator<Hit> nearestFirst = Comparator.comparingDouble(Hit::distanceKm).thenComparing(Hit::userId);
+        // Max-heap of the nearest hits so far, its head being the farthest of them
+        PriorityQueue<Hit> nearest = new PriorityQueue<>(Math.min(limit, 1024) + 1, nearestFirst.reversed());
+
+        lock.readLock().lock();
+        try {
+            if (grid == null) {
+                return List.of();
+            }
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    Cell cell = grid.cells[row * columns + Math.floorMod(column, columns)];
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < cell.size; i++) {
+                        double pointLat = Math.toRadians(cell.lats[i]);
+                        double h = haversine(pointLat - latRadians)
+                                + cosLat * Math.cos(pointLat) * haversine(Math.toRadians(cell.lngs[i] - lng));
+                        if (h > maxHaversine) {
+                            continue;
+                        }
+                        double distanceKm = 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1, h)));
+                        nearest.add(new Hit(cell.ids[i], distanceKm));
+                        if (nearest.size() > limit) {
+                            nearest.poll();
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Hit> hits = new ArrayList<>(nearest);
+        hits.sort(nearestFirst);
+        return hits;
+    }
+
+    /**
+     * Indexes the coordinates of a created or updated user, or drops a deleted one, once the write is committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        Long userId = event.getUserId();
+        Double lat = null;
+        Double lng = null;
+        if (event.getType() == UserChangedEvent.Type.UPSERTED) {
+            User user = event.getUser();
+            Geo geo = user.getAddress() == null ? null : user.getAddress().getGeo();
+            if (geo != null) {
+                lat = UserMapper.parseCoordinate(geo.getLat());
+                lng = UserMapper.parseCoordinate(geo.getLng());
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Grid target : new Grid[]{grid, building}) {
+                if (target == null) {
+                    continue;
+                }
+                if (lat == null || lng == null) {
+                    target.remove(userId);
+                } else {
+                    target.put(userId, lat, lng);
+                }
+            }
+            if (building != null) {
+                changedWhileBuilding.add(userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int row(double lat) {
+        return Math.min(rows - 1, (int) Math.floor((lat + 90) / cellDegrees));
+    }
+
+    private int cell(double lat, double lng) {
+        int column = Math.floorMod((int) Math.floor((lng + 180) / cellDegrees), columns);
+        return row(lat) * columns + column;
+    }
+
+    private static double haversine(double radians) {
+        double sin = Math.sin(radians / 2);
+        return sin * sin;
+    }
+
+    /**
+     * Cells of the grid, allocated on first use; not thread-safe
+     */
+    private final class Grid {
+        private final Cell[] cells = new Cell[rows * columns];
+        // Cell of each user, to find its entry on update and delete
+        private final Map<Long, Integer> cellOf = new HashMap<>();
+
+        void put(long userId, double lat, double lng) {
+            remove(userId);
+            int index = cell(lat, lng);
+            Cell cell = cells[index];
+            if (cell == null) {
+                cell = new Cell();
+                cells[index] = cell;
+            }
+            cell.add(userId, lat, lng);
+            cellOf.put(userId, index);
+        }
+
+        void remove(long userId) {
+            Integer index = cellOf.remove(userId);
+            if (index != null) {
+                cells[index].remove(userId);
+            }
+        }
+    }
+
+    /**
+     * Users of one cell, unordered, in parallel primitive arrays
+     */
+    private static final class Cell {
+        private long[] ids = new long[4];
+        private double[] lats = new double[4];
+        private double[] lngs = new double[4];
+        private int size;
+
+        void add(long userId, double lat, double lng) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                lats = Arrays.copyOf(lats, capacity);
+                lngs = Arrays.copyOf(lngs, capacity);
+            }
+            ids[size] = userId;
+            lats[size] = lat;
+            lngs[size] = lng;
+            size++;
+        }
+
+        void remove(long userId) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == userId) {
+                    // Order does not matter, so the last entry fills the gap
+                    size--;
+                    ids[i] = ids[size];
+                    lats[i] = lats[size];
+                    lngs[i] = lngs[size];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.test.restful.service;
+
+import com.test.restful.entity.UserEntity;
+import com.test.restful.repository.UserIdentity;
+import com.test.restful.repository.UserJpaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filters over the usernames and emails in the users table.
+ *
+ * A "definitely not taken" answer needs no database round-trip; a "maybe taken" answer has to be
+ * confirmed against the database, and the callers report that outcome so the observed false
+ * positive rate is published as a metric. The filters are built from the table once the
+ * application is ready and kept in sync from {@link UserChangedEvent}s. Until they are built,
+ * every value is reported as possibly taken.
+ *
+ * Values are never removed, so renamed or deleted users only cost extra false positives. The
+ * filters are rebuilt in the background with twice the capacity when more values are added than
+ * they were sized for.
+ */
+@Component
+public class UserUniquenessGuard {
+    private static final Logger logger = LoggerFactory.getLogger(UserUniquenessGuard.class);
+
+    public enum Field {
+        USERNAME,
+        EMAIL
+    }
+
+    private final UserJpaRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final TaskExecutor executor;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final Map<Field, FieldMetrics> metrics = new EnumMap<>(Field.class);
+
+    // Null until warmed; replaced as a whole on rebuild. Written under lock, read without
+    private volatile Filters filters;
+    // Guarded by lock. Filters being rebuilt, which also receive concurrent additions; the swap
+    // happens under the same lock, so every addition lands in the filters that stay
+    private Filters building;
+
+    @Autowired
+    public UserUniquenessGuard(UserJpaRepository userRepository, PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                               TaskExecutor executor,
+                               @Value("${app.users.uniqueness-filter.expected-insertions:10000}") long expectedInsertions,
+                               @Value("${app.users.uniqueness-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // Rebuilds can be triggered from an after-commit listener, whose transaction is finished
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.executor = executor;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        for (Field field : Field.values()) {
+            metrics.put(field, new FieldMetrics(field, meterRegistry));
+        }
+    }
+
+    /**
+     * Builds the filters from the users table
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the filters from the users table, sized for at least twice the current row count
+     */
+    public void rebuild() {
+        if (!rebuildLock.tryLock()) {
+            // Another thread is already rebuilding
+            return;
+        }
+        try {
+            Filters next = transactionTemplate.execute(status -> {
+                long capacity = Math.max(expectedInsertions, userRepository.count() * 2);
+                Filters built = new Filters(capacity, falsePositiveRate);
+                setBuilding(built);
+                try (Stream<UserIdentity> identities = userRepository.streamIdentities()) {
+                    identities.forEach(identity -> built.add(identity.username(), identity.email()));
+                }
+                return built;
+            });
+
+            lock.lock();
+            try {
+                filters = next;
+                building = null;
+            } finally {
+                lock.unlock();
+            }
+            logger.info("Built username/email filters for {} users with capacity {}", next.size.get(), next.capacity);
+        } finally {
+            setBuilding(null);
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * @param field Field the value belongs to
+     * @param value Username or email
+     * @return false if the value is definitely not taken, true if the database has to be asked
+     */
+    public boolean mightBeTaken(Field field, String value) {
+        Filters current = filters;
+        if (current == null || value == null) {
+            return true;
+        }
+        boolean maybe = current.get(field).mightContain(UserEntity.normalizeKey(value));
+        metrics.get(field).recordCheck(maybe);
+        return maybe;
+    }
+
+    /**
+     * Reports what the database said about a value the filter answered "maybe" for
+     *
+     * @param field Field the value belongs to
+     * @param taken Whether the value exists in the database
+     */
+    public void recordConfirmation(Field field, boolean taken) {
+        if (!taken && filters != null) {
+            metrics.get(field).falsePositives.increment();
+        }
+    }
+
+    /**
+     * Adds the username and email of a created or updated user once the write is committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getType() != UserChangedEvent.Type.UPSERTED) {
+            return;
+        }
+
+        String username = event.getUser().getUsername();
+        String email = event.getUser().getEmail();
+        Filters current;
+        lock.lock();
+        try {
+            // Before the first build completes only the filters being built take the value
+            current = filters;
+            if (current != null) {
+                current.add(username, email);
+            }
+            if (building != null) {
+                building.add(username, email);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (current != null && current.size.get() > current.capacity && rebuildScheduled.compareAndSet(false, true)) {
+            // The full scan runs on the task executor, not on the thread of the write that tipped it over
+            logger.info("Username/email filters exceeded their capacity of {}, rebuilding", current.capacity);
+            executor.execute(() -> {
+                try {
+                    rebuild();
+                } finally {
+                    rebuildScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    private void setBuilding(Filters next) {
+        lock.lock();
+        try {
+            building = next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Filters {
+        private final long capacity;
+        private final BloomFilter usernames;
+        private final BloomFilter emails;
+        private final AtomicLong size = new AtomicLong();
+
+        Filters(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.usernames = new BloomFilter(capacity, falsePositiveRate);
+            this.emails = new BloomFilter(capacity, falsePositiveRate);
+        }
+
+        void add(String username, String email) {
+            // Keyed like the unique constraints, case-insensitively
+            if (username != null) {
+                usernames.add(UserEntity.normalizeKey(username));
+            }
+            if (email != null) {
+                emails.add(UserEntity.normalizeKey(email));
+            }
+            size.incrementAndGet();
+        }
+
+        BloomFilter get(Field field) {
+            return field == Field.USERNAME ? usernames : emails;
+        }
+    }
+
+    private final class FieldMetrics {
+        private final Counter negatives;
+        private final Counter maybes;
+        private final Counter falsePositives;
+
+        FieldMetrics(Field field, MeterRegistry registry) {
+            String tag = field.name().toLowerCase(Locale.ROOT);
+            this.negatives = Counter.builder("users.uniqueness.filter.checks")
+                    .description("Uniqueness filter lookups by answer")
+                    .tag("field", tag).tag("result", "absent")
+                    .register(registry);
+            this.maybes = Counter.builder("users.uniqueness.filter.checks")
+                    .description("Uniqueness filter lookups by answer")
+                    .tag("field", tag).tag("result", "maybe")
+                    .register(registry);
+            this.falsePositives = Counter.builder("users.uniqueness.filter.false.positives")
+                    .description("Lookups answered maybe that the database found to be free")
+                    .tag("field", tag)
+                    .register(registry);
+            Gauge.builder("users.uniqueness.filter.false.positive.rate", this, FieldMetrics::observedFalsePositiveRate)
+                    .description("Observed share of free values answered maybe")
+                    .tag("field", tag)
+                    .register(registry);
+            Gauge.builder("users.uniqueness.filter.expected.false.positive.rate", this,
+                            metrics -> expectedFalsePositiveRate(field))
+                    .description("False positive probability implied by the filter fill ratio")
+                    .tag("field", tag)
+                    .register(registry);
+        }
+
+        void recordCheck(boolean maybe) {
+            (maybe ? maybes : negatives).increment();
+        }
+
+        // False positives over all lookups of free values: those answered absent plus the false positives
+        double observedFalsePositiveRate() {
+            double falsePositiveCount = falsePositives.count();
+            double free = negatives.count() + falsePositiveCount;
+            return free == 0 ? 0 : falsePositiveCount / free;
+        }
+    }
+
+    private double expectedFalsePositiveRate(Field field) {
+        Filters current = filters;
+        return current == null ? 1 : current.get(field).expectedFalsePositiveRate();
+    }
+}
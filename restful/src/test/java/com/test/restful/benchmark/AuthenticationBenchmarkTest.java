@@ -0,0 +1,56 @@
+package com.test.restful.benchmark;
+
+import com.test.restful.config.CachingAuthenticationProvider;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares authenticating the same HTTP Basic credentials with plain BCrypt verification and with
+ * the authentication cache, using the application's default BCrypt strength. Run with
+ * {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+public class AuthenticationBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(AuthenticationBenchmarkTest.class);
+
+    @Test
+    void cachedAuthentication_ShouldCostMicroseconds() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+        DaoAuthenticationProvider bcrypt = new DaoAuthenticationProvider(encoder);
+        bcrypt.setUserDetailsService(new InMemoryUserDetailsManager(
+                User.withUsername("user").password(encoder.encode("password")).roles("USER").build()));
+        CachingAuthenticationProvider cached =
+                new CachingAuthenticationProvider(bcrypt, "maximumSize=10000,expireAfterWrite=300s");
+
+        double bcryptMicros = measure(bcrypt, 20);
+        double cachedMicros = measure(cached, 200_000);
+
+        logger.info("BCrypt: {} us per authentication, cached: {} us per authentication, {}x faster",
+                String.format("%.1f", bcryptMicros), String.format("%.2f", cachedMicros),
+                Math.round(bcryptMicros / cachedMicros));
+        assertTrue(cachedMicros < 20, () -> "Cached authentication took " + cachedMicros + " us");
+    }
+
+    private static double measure(AuthenticationProvider provider, int iterations) {
+        // Warm-up, which also fills the cache
+        for (int i = 0; i < Math.max(3, iterations / 10); i++) {
+            provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("user", "password"));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            assertTrue(provider.authenticate(
+                    UsernamePasswordAuthenticationToken.unauthenticated("user", "password")).isAuthenticated());
+        }
+        return (System.nanoTime() - start) / 1_000.0 / iterations;
+    }
+}
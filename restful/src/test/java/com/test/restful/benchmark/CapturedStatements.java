@@ -0,0 +1,119 @@
+package com.test.restful.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the prepared statements an application executes, with the SQL as sent to the driver and
+ * the parameters bound to it, so a benchmark can explain exactly what the code under test ran.
+ *
+ * Register {@link #postProcessor()} with the application context before it is refreshed.
+ */
+final class CapturedStatements {
+
+    /**
+     * @param sql Statement text as prepared
+     * @param parameters Values bound by parameter index, starting at 1
+     */
+    record Statement(String sql, Map<Integer, Object> parameters) {
+    }
+
+    // Null while not capturing
+    private static volatile List<Statement> captured;
+
+    private CapturedStatements() {
+    }
+
+    /**
+     * Runs the action and returns the statements it executed, in order
+     */
+    static List<Statement> capture(Runnable action) {
+        List<Statement> statements = new CopyOnWriteArrayList<>();
+        captured = statements;
+        try {
+            action.run();
+        } finally {
+            captured = null;
+        }
+        return List.copyOf(statements);
+    }
+
+    /**
+     * Prepares {@code prefix + sql} on the connection and binds the captured parameters to it
+     */
+    static PreparedStatement prepare(Connection connection, String prefix, Statement statement) throws Exception {
+        PreparedStatement prepared = connection.prepareStatement(prefix + statement.sql());
+        for (Map.Entry<Integer, Object> parameter : statement.parameters().entrySet()) {
+            prepared.setObject(parameter.getKey(), parameter.getValue());
+        }
+        return prepared;
+    }
+
+    /**
+     * Wraps data sources so the statements prepared on their connections are recorded while capturing
+     */
+    static BeanPostProcessor postProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                return Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                        (proxy, method, args) -> {
+                            Object result = invoke(dataSource, method, args);
+                            return result instanceof Connection connection ? recording(connection) : result;
+                        });
+            }
+        };
+    }
+
+    private static Connection recording(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement statement) {
+                        return recording(statement, (String) args[0]);
+                    }
+                    return result;
+                });
+    }
+
+    private static PreparedStatement recording(PreparedStatement statement, String sql) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                        parameters.put(index, name.equals("setNull") ? null : args[1]);
+                    } else if (name.equals("clearParameters")) {
+                        parameters.clear();
+                    } else if (name.startsWith("execute") && (args == null || args.length == 0)) {
+                        List<Statement> statements = captured;
+                        if (statements != null) {
+                            statements.add(new Statement(sql, new TreeMap<>(parameters)));
+                        }
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
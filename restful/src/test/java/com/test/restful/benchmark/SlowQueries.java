@@ -0,0 +1,77 @@
+package com.test.restful.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+
+/**
+ * Simulates slow queries in an application started by a benchmark: while enabled, preparing a
+ * statement waits while holding the pooled connection, like a slow query would.
+ *
+ * Register {@link #postProcessor()} with the application context before it is refreshed.
+ */
+final class SlowQueries {
+
+    // Zero while disabled
+    private static volatile long delayMillis;
+
+    private SlowQueries() {
+    }
+
+    /**
+     * Delays every statement prepared from now on
+     *
+     * @param millis Delay per statement; statements waiting are released early by {@link #disable()}
+     */
+    static void enable(long millis) {
+        delayMillis = millis;
+    }
+
+    static void disable() {
+        delayMillis = 0;
+    }
+
+    /**
+     * Wraps data sources so their connections apply the delay
+     */
+    static BeanPostProcessor postProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                return Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                        (proxy, method, args) -> {
+                            Object result = invoke(dataSource, method, args);
+                            return result instanceof Connection connection ? slow(connection) : result;
+                        });
+            }
+        };
+    }
+
+    private static Connection slow(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("prepare")) {
+                        long deadline = System.nanoTime() + delayMillis * 1_000_000;
+                        while (delayMillis > 0 && System.nanoTime() < deadline) {
+                            Thread.sleep(10);
+                        }
+                    }
+                    return invoke(connection, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.test.restful.benchmark;
+
+import com.test.restful.RestfulApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures the memory held per concurrent in-flight read: a burst of reads of users missing from the
+ * cache is kept waiting on stalled queries while the JVM's threads, committed thread stacks and live
+ * heap are compared with the idle application. Compares the blocking {@code /api/users/{id}} on
+ * platform and on virtual threads with the asynchronous {@code /api/async/users/{id}} on platform
+ * threads. Client and server share the JVM, so the client's cost is included equally in every mode.
+ * Run with {@code gradle benchmark}, which enables native memory tracking.
+ */
+@Tag("benchmark")
+public class UserReadMemoryBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(UserReadMemoryBenchmarkTest.class);
+
+    private static final int CONNECTIONS = 1_000;
+    private static final String AUTHORIZATION = "Basic "
+            + Base64.getEncoder().encodeToString("user:password".getBytes(StandardCharsets.UTF_8));
+    private static final Pattern THREAD_MEMORY = Pattern.compile("Thread \\(reserved=\\d+KB, committed=(\\d+)KB\\)");
+
+    private record Usage(int threads, long threadStackKb, long heapKb) {
+        Usage minus(Usage baseline) {
+            return new Usage(threads - baseline.threads, threadStackKb - baseline.threadStackKb, heapKb - baseline.heapKb);
+        }
+
+        double kbPerConnection() {
+            return (double) (threadStackKb + heapKb) / CONNECTIONS;
+        }
+    }
+
+    @Test
+    void asyncReads_ShouldHoldLessMemoryPerConnectionThanThreadPerRequest() throws Exception {
+        // Thread per request needs a request thread per connection, async reads only for dispatching
+        Usage blocking = run("blocking, platform threads", "/api/users/", false, CONNECTIONS + 50);
+        Usage virtual = run("blocking, virtual threads", "/api/users/", true, CONNECTIONS + 50);
+        Usage async = run("async, platform threads", "/api/async/users/", false, 50);
+
+        assertTrue(async.kbPerConnection() < blocking.kbPerConnection(),
+                () -> "Async " + async + ", blocking " + blocking);
+        assertTrue(async.threads() < CONNECTIONS / 10, () -> "Async reads held " + async.threads() + " threads");
+        assertTrue(virtual.threads() < CONNECTIONS / 10, () -> "Virtual threads held " + virtual.threads() + " threads");
+    }
+
+    private static Usage run(String mode, String path, boolean virtualThreads, int requestThreads) throws Exception {
+        SlowQueries.disable();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(RestfulApplication.class)
+                .initializers(applicationContext -> applicationContext.getBeanFactory()
+                        .addBeanPostProcessor(SlowQueries.postProcessor()))
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--server.tomcat.threads.max=" + requestThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:memory-" + mode.replaceAll("\\W+", "-"),
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.test.restful=OFF",
+                        "--logging.level.com.test.restful.benchmark=INFO");
+        try (HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build()) {
+            String base = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + path;
+            for (int i = 0; i < 20; i++) {
+                send(client, URI.create(base + "1")).join();
+            }
+            Usage idle = usage();
+
+            // Unknown ids, so every read misses the cache and waits for its query
+            SlowQueries.enable(60_000);
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < CONNECTIONS; i++) {
+                responses.add(send(client, URI.create(base + (1_000_000 + i))));
+            }
+            Thread.sleep(3_000);
+            Usage busy = usage().minus(idle);
+            SlowQueries.disable();
+
+            int notFound = 0;
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                notFound += response.join().statusCode() == 404 ? 1 : 0;
+            }
+            logger.info("{}: {} concurrent reads held {} threads, {} KB thread stacks and {} KB heap, {} KB per connection",
+                    mode, CONNECTIONS, busy.threads(), busy.threadStackKb(), busy.heapKb(),
+                    String.format("%.1f", busy.kbPerConnection()));
+            assertEquals(CONNECTIONS, notFound);
+            return busy;
+        } finally {
+            SlowQueries.disable();
+            context.close();
+        }
+    }
+
+    private static Usage usage() throws Exception {
+        System.gc();
+        String nativeMemory = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+                new ObjectName("com.sun.management:type=DiagnosticCommand"), "vmNativeMemory",
+                new Object[]{new String[]{"summary"}}, new String[]{String[].class.getName()});
+        Matcher matcher = THREAD_MEMORY.matcher(nativeMemory);
+        assertTrue(matcher.find(), () -> "Native memory tracking is off: " + nativeMemory);
+        return new Usage(ManagementFactory.getThreadMXBean().getThreadCount(), Long.parseLong(matcher.group(1)),
+                ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / 1024);
+    }
+
+    private static CompletableFuture<HttpResponse<String>> send(HttpClient client, URI uri) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Authorization", AUTHORIZATION)
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
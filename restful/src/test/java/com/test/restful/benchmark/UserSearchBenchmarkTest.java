@@ -0,0 +1,172 @@
+package com.test.restful.benchmark;
+
+import com.test.restful.entity.UserEntity;
+import com.test.restful.model.UserSearchCriteria;
+import com.test.restful.repository.UserJpaRepository;
+import com.test.restful.repository.UserSpecifications;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that each search filter is answered from its index on a large table and reports the
+ * query times. Run with {@code gradle benchmark}; the row count defaults to one million and can be
+ * changed with {@code -Pbenchmark.users=...}.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.format_sql=false"
+})
+@Import(UserSearchBenchmarkTest.CaptureConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class UserSearchBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchBenchmarkTest.class);
+
+    private static final int USERS = Integer.getInteger("benchmark.users", 1_000_000);
+    private static final int CITIES = 1_000;
+    private static final int COMPANIES = 5_000;
+    private static final int RUNS = 20;
+
+    @Autowired
+    private UserJpaRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void populate() {
+        long start = System.nanoTime();
+        // Generated in the database; going through the entities would dominate the run time
+        jdbcTemplate.update("insert into geo (id, latitude, longitude) select x, 0, 0 from system_range(1, ?)", USERS);
+        jdbcTemplate.update("insert into address (id, street, city, zipcode, geo_id) "
+                + "select x, 'Street ' || x, 'City ' || mod(x, ?), '00000', x from system_range(1, ?)", CITIES, USERS);
+        jdbcTemplate.update("insert into company (id, name) "
+                + "select x, 'Company ' || mod(x, ?) from system_range(1, ?)", COMPANIES, USERS);
+        jdbcTemplate.update("insert into users (id, name, username, username_key, email, email_key, "
+                + "address_id, company_id, version, last_modified) "
+                + "select x, 'User ' || x, 'User' || x, 'user' || x, 'user' || x || '@example.com', "
+                + "'user' || x || '@example.com', x, x, 0, current_timestamp from system_range(1, ?)", USERS);
+        jdbcTemplate.execute("analyze");
+        logger.info("Inserted {} users in {} ms", USERS, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Test
+    void searchByCity_ShouldUseCityIndex() {
+        UserSearchCriteria criteria = new UserSearchCriteria();
+        criteria.setCity("City 42");
+        assertPlansUse("idx_address_city", criteria);
+
+        Page<UserEntity> page = time("city", criteria);
+
+        assertEquals(USERS / CITIES, page.getTotalElements());
+    }
+
+    @Test
+    void searchByCompany_ShouldUseCompanyNameIndex() {
+        UserSearchCriteria criteria = new UserSearchCriteria();
+        criteria.setCompany("Company 7");
+        assertPlansUse("idx_company_name", criteria);
+
+        Page<UserEntity> page = time("company", criteria);
+
+        assertEquals(USERS / COMPANIES, page.getTotalElements());
+    }
+
+    @Test
+    void searchByNamePrefix_ShouldUseNameIndex() {
+        UserSearchCriteria criteria = new UserSearchCriteria();
+        criteria.setNamePrefix("User 12345");
+        assertPlansUse("idx_users_name", criteria);
+
+        Page<UserEntity> page = time("name prefix", criteria);
+
+        assertFalse(page.isEmpty());
+    }
+
+    @Test
+    void searchByUsernamePrefix_ShouldUseUsernameKeyIndex() {
+        UserSearchCriteria criteria = new UserSearchCriteria();
+        criteria.setUsernamePrefix("USER12345");
+        assertPlansUse(UserEntity.USERNAME_CONSTRAINT, criteria);
+
+        Page<UserEntity> page = time("username prefix", criteria);
+
+        assertFalse(page.isEmpty());
+    }
+
+    /**
+     * Explains the statements Hibernate executes for a search page, its select and its count, with
+     * the values it bound to them
+     */
+    private void assertPlansUse(String index, UserSearchCriteria criteria) {
+        List<CapturedStatements.Statement> statements = CapturedStatements.capture(() ->
+                userRepository.findAll(UserSpecifications.matching(criteria), PageRequest.of(0, 10, Sort.by("id"))));
+        assertFalse(statements.isEmpty(), "No statement was captured");
+
+        for (CapturedStatements.Statement captured : statements) {
+            String plan = jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+                try (PreparedStatement statement = CapturedStatements.prepare(connection, "explain ", captured);
+                     ResultSet result = statement.executeQuery()) {
+                    result.next();
+                    return result.getString(1);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Could not explain " + captured.sql(), e);
+                }
+            });
+            logger.info("Plan for {}: {}", captured.parameters(), plan);
+            assertTrue(plan.toLowerCase().contains(index.toLowerCase()), () -> "Expected " + index + " in plan: " + plan);
+        }
+    }
+
+    private Page<UserEntity> time(String filter, UserSearchCriteria criteria) {
+        PageRequest pageable = PageRequest.of(0, 10, Sort.by("id"));
+        Consumer<UserSearchCriteria> search = c -> userRepository.findAll(UserSpecifications.matching(c), pageable);
+
+        // Warm-up, so the timed runs measure the queries rather than their first compilation
+        for (int i = 0; i < 3; i++) {
+            search.accept(criteria);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            search.accept(criteria);
+        }
+        double averageMillis = (System.nanoTime() - start) / 1_000_000.0 / RUNS;
+        logger.info("Search by {} over {} users: {} ms per page (select + count)",
+                filter, USERS, String.format("%.2f", averageMillis));
+
+        return userRepository.findAll(UserSpecifications.matching(criteria), pageable);
+    }
+
+    @TestConfiguration
+    static class CaptureConfig {
+        @Bean
+        static BeanPostProcessor capturedStatementsPostProcessor() {
+            return CapturedStatements.postProcessor();
+        }
+    }
+}
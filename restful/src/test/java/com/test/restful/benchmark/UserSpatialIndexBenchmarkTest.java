@@ -0,0 +1,98 @@
+package com.test.restful.benchmark;
+
+import com.test.restful.repository.UserJpaRepository;
+import com.test.restful.repository.UserLocation;
+import com.test.restful.service.UserSpatialIndex;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures radius queries of the spatial index over a million users spread over the globe, half of
+ * them clustered around a few cities. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class UserSpatialIndexBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(UserSpatialIndexBenchmarkTest.class);
+
+    private static final int USERS = Integer.getInteger("benchmark.users", 1_000_000);
+    private static final double[][] CITIES = {{51.5074, -0.1278}, {40.7128, -74.0060}, {35.6762, 139.6503}, {-33.8688, 151.2093}};
+    private static final int QUERIES = 10_000;
+
+    private UserSpatialIndex index;
+
+    @BeforeAll
+    void populate() {
+        UserJpaRepository userRepository = mock(UserJpaRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        Random random = new Random(7);
+        when(userRepository.streamLocations()).thenReturn(LongStream.rangeClosed(1, USERS).mapToObj(id -> {
+            if (id % 2 == 0) {
+                double[] city = CITIES[(int) (id / 2 % CITIES.length)];
+                return new UserLocation(id, city[0] + random.nextGaussian() * 0.5, city[1] + random.nextGaussian() * 0.5);
+            }
+            return new UserLocation(id, Math.toDegrees(Math.asin(random.nextDouble() * 2 - 1)), random.nextDouble() * 360 - 180);
+        }));
+
+        index = new UserSpatialIndex(userRepository, transactionManager, 0.25);
+        assertEquals(USERS, index.rebuild());
+    }
+
+    @Test
+    void findNear_InSparseAreas_ShouldAnswerInUnderAMillisecond() {
+        double averageMillis = measure(10, false);
+        assertTrue(averageMillis < 1, () -> "Average query took " + averageMillis + " ms");
+    }
+
+    @Test
+    void findNear_InDenseCities_ShouldAnswerInUnderAMillisecond() {
+        double averageMillis = measure(2, true);
+        assertTrue(averageMillis < 1, () -> "Average query took " + averageMillis + " ms");
+    }
+
+    @Test
+    void findNear_WithLargeRadius_ShouldReport() {
+        measure(200, false);
+    }
+
+    private double measure(double radiusKm, boolean inCities) {
+        Random random = new Random(11);
+        double[][] points = new double[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            points[i] = inCities
+                    ? new double[]{CITIES[i % CITIES.length][0] + random.nextGaussian() * 0.1,
+                            CITIES[i % CITIES.length][1] + random.nextGaussian() * 0.1}
+                    : new double[]{random.nextDouble() * 140 - 70, random.nextDouble() * 360 - 180};
+        }
+
+        // Warm-up, so the timed queries run compiled code
+        long found = 0;
+        for (double[] point : points) {
+            found += index.findNear(point[0], point[1], radiusKm, 10).size();
+        }
+        long start = System.nanoTime();
+        for (double[] point : points) {
+            found += index.findNear(point[0], point[1], radiusKm, 10).size();
+        }
+        double averageMillis = (System.nanoTime() - start) / 1_000_000.0 / QUERIES;
+        logger.info("Radius {} km {} over {} users: {} ms per query, {} hits on average",
+                radiusKm, inCities ? "in cities" : "anywhere", USERS, String.format("%.4f", averageMillis),
+                found / 2 / QUERIES);
+        return averageMillis;
+    }
+}
@@ -0,0 +1,159 @@
+package com.test.restful.benchmark;
+
+import com.test.restful.RestfulApplication;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares Tomcat's platform-thread pool with virtual threads during a slow-query spike: every
+ * statement is delayed while a burst of database-bound searches is in flight, and the latency of
+ * concurrent requests answered from memory, availability checks of a never registered username, is measured. With platform threads those requests
+ * wait for a request thread held by a search; with virtual threads only the searches wait, for a
+ * connection. The virtual-thread run also records pinned virtual threads. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+public class VirtualThreadLoadBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadLoadBenchmarkTest.class);
+
+    private static final int SLOW_REQUESTS = 200;
+    private static final int FAST_REQUESTS = 200;
+    private static final long QUERY_DELAY_MILLIS = 1_000;
+    // Small enough for the burst to occupy every platform request thread
+    private static final int PLATFORM_THREADS = 50;
+    private static final String AUTHORIZATION = "Basic "
+            + Base64.getEncoder().encodeToString("user:password".getBytes(StandardCharsets.UTF_8));
+
+    private record Result(long slowMillis, long fastMedianMillis, long fastMaxMillis, int errors) {
+    }
+
+    @Test
+    void virtualThreads_ShouldKeepInMemoryRequestsFastDuringSlowQuerySpike() throws Exception {
+        Result platform = run(false);
+        Set<String> pinnedFrames = ConcurrentHashMap.newKeySet();
+        AtomicInteger pinned = new AtomicInteger();
+        Result virtual;
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(20)).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> {
+                pinned.incrementAndGet();
+                if (event.getStackTrace() != null) {
+                    event.getStackTrace().getFrames().stream()
+                            .map(RecordedFrame::getMethod)
+                            .filter(method -> method.getType().getName().startsWith("com.test.restful"))
+                            .forEach(method -> pinnedFrames.add(method.getType().getName() + "." + method.getName()));
+                }
+            });
+            recording.startAsync();
+            virtual = run(true);
+        }
+
+        logger.info("Platform threads: {} searches in {} ms, in-memory requests median {} ms, max {} ms, {} errors",
+                SLOW_REQUESTS, platform.slowMillis(), platform.fastMedianMillis(), platform.fastMaxMillis(), platform.errors());
+        logger.info("Virtual threads: {} searches in {} ms, in-memory requests median {} ms, max {} ms, {} errors",
+                SLOW_REQUESTS, virtual.slowMillis(), virtual.fastMedianMillis(), virtual.fastMaxMillis(), virtual.errors());
+        logger.info("Virtual threads pinned for over 20 ms: {}, in application frames: {}", pinned.get(), pinnedFrames);
+
+        assertEquals(0, platform.errors());
+        assertEquals(0, virtual.errors());
+        assertTrue(pinnedFrames.isEmpty(), () -> "Virtual threads pinned in " + pinnedFrames);
+        assertTrue(virtual.fastMaxMillis() < platform.fastMedianMillis(),
+                () -> "Virtual threads " + virtual + ", platform threads " + platform);
+    }
+
+    private static Result run(boolean virtualThreads) throws Exception {
+        SlowQueries.disable();
+        String mode = virtualThreads ? "virtual" : "platform";
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(RestfulApplication.class)
+                .initializers(applicationContext -> applicationContext.getBeanFactory()
+                        .addBeanPostProcessor(SlowQueries.postProcessor()))
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--server.tomcat.threads.max=" + PLATFORM_THREADS,
+                        "--spring.datasource.url=jdbc:h2:mem:load-" + mode,
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.test.restful=WARN",
+                        "--logging.level.com.test.restful.benchmark=INFO");
+        try (HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI search = URI.create("http://localhost:" + port + "/api/users/search?city=Gwenborough");
+            URI inMemory = URI.create("http://localhost:" + port + "/api/users/availability?username=nobody-registered-this");
+
+            // Warm-up, which also caches the credentials
+            for (int i = 0; i < 20; i++) {
+                assertEquals(200, send(client, search).join().statusCode());
+                assertEquals(200, send(client, inMemory).join().statusCode());
+            }
+
+            SlowQueries.enable(QUERY_DELAY_MILLIS);
+            AtomicInteger errors = new AtomicInteger();
+            long start = System.nanoTime();
+            List<CompletableFuture<?>> searches = new ArrayList<>();
+            for (int i = 0; i < SLOW_REQUESTS; i++) {
+                searches.add(send(client, search).thenAccept(response -> countError(response, errors)));
+            }
+            // Let the burst reach the pool before the in-memory requests arrive
+            Thread.sleep(2_000);
+
+            List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+            List<CompletableFuture<?>> requests = new ArrayList<>();
+            for (int i = 0; i < FAST_REQUESTS; i++) {
+                long sent = System.nanoTime();
+                requests.add(send(client, inMemory).thenAccept(response -> {
+                    latencies.add((System.nanoTime() - sent) / 1_000_000);
+                    countError(response, errors);
+                }));
+                Thread.sleep(5);
+            }
+            CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).join();
+            CompletableFuture.allOf(searches.toArray(CompletableFuture[]::new)).join();
+            long slowMillis = (System.nanoTime() - start) / 1_000_000;
+
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            return new Result(slowMillis, sorted.get(sorted.size() / 2), sorted.getLast(), errors.get());
+        } finally {
+            SlowQueries.disable();
+            context.close();
+        }
+    }
+
+    private static CompletableFuture<HttpResponse<String>> send(HttpClient client, URI uri) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Authorization", AUTHORIZATION)
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void countError(HttpResponse<String> response, AtomicInteger errors) {
+        if (response.statusCode() != 200) {
+            errors.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.test.restful.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CachingAuthenticationProviderTest {
+
+    private AuthenticationProvider delegate;
+    private CachingAuthenticationProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        DaoAuthenticationProvider dao = new DaoAuthenticationProvider(encoder);
+        dao.setUserDetailsService(new InMemoryUserDetailsManager(
+                User.withUsername("user").password(encoder.encode("password")).roles("USER").build(),
+                User.withUsername("admin").password(encoder.encode("admin")).roles("USER", "ADMIN").build()));
+        delegate = spy(dao);
+        provider = new CachingAuthenticationProvider(delegate, "maximumSize=100,expireAfterWrite=60s");
+    }
+
+    @Test
+    void authenticate_WithRepeatedCredentials_ShouldVerifyOnlyOnce() {
+        // Act
+        Authentication first = provider.authenticate(token("user", "password"));
+        Authentication second = provider.authenticate(token("user", "password"));
+
+        // Assert
+        verify(delegate, times(1)).authenticate(any());
+        assertTrue(second.isAuthenticated());
+        assertEquals("user", second.getName());
+        assertEquals(first.getAuthorities(), second.getAuthorities());
+        assertNotSame(first, second);
+        assertNull(second.getCredentials());
+    }
+
+    @Test
+    void authenticate_WithWrongPasswordAfterSuccess_ShouldStillFail() {
+        // Arrange
+        provider.authenticate(token("user", "password"));
+
+        // Act & Assert
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(token("user", "wrong")));
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(token("user", "wrong")));
+        verify(delegate, times(3)).authenticate(any());
+    }
+
+    @Test
+    void authenticate_ShouldKeepUsersApart() {
+        // Act
+        provider.authenticate(token("user", "password"));
+        Authentication admin = provider.authenticate(token("admin", "admin"));
+
+        // Assert
+        assertEquals("admin", admin.getName());
+        assertTrue(admin.getAuthorities().stream().anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority())));
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(token("admin", "password")));
+    }
+
+    @Test
+    void invalidateAll_ShouldForceVerificationAgain() {
+        // Arrange
+        provider.authenticate(token("user", "password"));
+
+        // Act
+        provider.invalidateAll();
+        provider.authenticate(token("user", "password"));
+
+        // Assert
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    private static UsernamePasswordAuthenticationToken token(String username, String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+    }
+}
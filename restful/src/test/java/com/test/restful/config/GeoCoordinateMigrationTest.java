@@ -0,0 +1,67 @@
+package com.test.restful.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+// H2 commits DDL implicitly, so the test manages its own cleanup instead of rolling back
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class GeoCoordinateMigrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from geo");
+        jdbcTemplate.execute("alter table geo drop column if exists lat");
+        jdbcTemplate.execute("alter table geo drop column if exists lng");
+    }
+
+    @Test
+    void migrate_ShouldCopyTextCoordinatesAndDropTheTextColumns() {
+        // Arrange
+        jdbcTemplate.execute("alter table geo add column lat varchar(255)");
+        jdbcTemplate.execute("alter table geo add column lng varchar(255)");
+        jdbcTemplate.update("insert into geo (id, lat, lng) values (1, '-37.3159', ' 81.1496 ')");
+        jdbcTemplate.update("insert into geo (id, lat, lng) values (2, null, null)");
+
+        // Act
+        new GeoCoordinateMigration(jdbcTemplate, entityManagerFactory).migrate();
+
+        // Assert
+        Map<String, Object> row = jdbcTemplate.queryForMap("select latitude, longitude from geo where id = 1");
+        assertEquals(-37.3159, ((Number) row.get("LATITUDE")).doubleValue());
+        assertEquals(81.1496, ((Number) row.get("LONGITUDE")).doubleValue());
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from information_schema.columns "
+                + "where lower(table_name) = 'geo' and lower(column_name) in ('lat', 'lng')", Integer.class));
+    }
+
+    @Test
+    void migrate_WithUnparsableRows_ShouldKeepTheTextColumns() {
+        // Arrange
+        jdbcTemplate.execute("alter table geo add column lat varchar(255)");
+        jdbcTemplate.execute("alter table geo add column lng varchar(255)");
+        jdbcTemplate.update("insert into geo (id, lat, lng) values (1, 'north', '1.5')");
+
+        // Act
+        new GeoCoordinateMigration(jdbcTemplate, entityManagerFactory).migrate();
+
+        // Assert
+        assertEquals("north", jdbcTemplate.queryForObject("select lat from geo where id = 1", String.class));
+        assertNull(jdbcTemplate.queryForObject("select latitude from geo where id = 1", Double.class));
+    }
+}
@@ -0,0 +1,193 @@
+package com.test.restful.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 20;
+
+    private SingleFlight<Long, String> singleFlight;
+    private AtomicInteger loads;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        singleFlight = new SingleFlight<>(CacheConfig.USERS);
+        loads = new AtomicInteger();
+        release = new CountDownLatch(1);
+    }
+
+    @Test
+    void load_WithConcurrentCallersForSameKey_ShouldRunOneLoad() throws Exception {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        singleFlight.bindTo(registry);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Act
+            List<Future<String>> results = startCallers(executor, 1L, () -> blockingLoad("user 1"));
+            awaitCoalesced(CALLERS - 1);
+            release.countDown();
+
+            // Assert
+            for (Future<String> result : results) {
+                assertEquals("user 1", result.get(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, singleFlight.loadCount());
+        assertEquals(CALLERS - 1, singleFlight.coalescedCount());
+        assertEquals(CALLERS - 1, registry.get("cache.single.flight")
+                .tags("cache", CacheConfig.USERS, "result", "coalesced").functionCounter().count());
+    }
+
+    @Test
+    void load_WhenLoadFails_ShouldShareExceptionAndLoadAgainNextTime() throws Exception {
+        // Arrange
+        IllegalStateException failure = new IllegalStateException("database unavailable");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Act
+            List<Future<String>> results = startCallers(executor, 1L, () -> {
+                blockingLoad("never returned");
+                throw failure;
+            });
+            awaitCoalesced(CALLERS - 1);
+            release.countDown();
+
+            // Assert
+            for (Future<String> result : results) {
+                Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertSame(failure, e.getCause());
+            }
+        }
+        assertEquals("loaded", singleFlight.load(1L, () -> "loaded"));
+        assertEquals(2, singleFlight.loadCount());
+    }
+
+    @Test
+    void load_AfterForget_ShouldStartNewLoadForLaterCallers() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Arrange
+            Future<String> before = executor.submit(() -> singleFlight.load(1L, () -> blockingLoad("old")));
+            while (loads.get() == 0) {
+                Thread.sleep(1);
+            }
+
+            // Act
+            singleFlight.forget(1L);
+            String after = singleFlight.load(1L, () -> "new");
+            release.countDown();
+
+            // Assert
+            assertEquals("new", after);
+            assertEquals("old", before.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(2, singleFlight.loadCount());
+        assertEquals(0, singleFlight.coalescedCount());
+    }
+
+    @Test
+    void load_WhenForgottenWhileLoading_ShouldNotStoreValue() {
+        // Arrange
+        List<String> stored = new ArrayList<>();
+
+        // Act
+        String value = singleFlight.load(1L, () -> {
+            singleFlight.forget(1L);
+            return "loaded before a change";
+        }, stored::add);
+        singleFlight.load(2L, () -> "current", stored::add);
+
+        // Assert
+        assertEquals("loaded before a change", value);
+        assertEquals(List.of("current"), stored);
+    }
+
+    @Test
+    void loadAll_ShouldShareLoadsInFlightAndLoadOtherKeysTogether() throws Exception {
+        // Arrange
+        List<List<Long>> batches = new ArrayList<>();
+        Map<Long, String> stored = new ConcurrentHashMap<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> single = executor.submit(() -> singleFlight.load(1L, () -> blockingLoad("user 1")));
+            while (loads.get() == 0) {
+                Thread.sleep(1);
+            }
+
+            // Act
+            Future<Map<Long, String>> all = executor.submit(() -> singleFlight.loadAll(List.of(1L, 2L, 3L), keys -> {
+                batches.add(keys);
+                return Map.of(2L, "user 2", 3L, "user 3");
+            }, stored::put));
+            awaitCoalesced(1);
+            release.countDown();
+
+            // Assert
+            assertEquals("user 1", single.get(5, TimeUnit.SECONDS));
+            assertEquals(Map.of(1L, "user 1", 2L, "user 2", 3L, "user 3"), all.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(List.of(List.of(2L, 3L)), batches);
+        assertEquals(Map.of(2L, "user 2", 3L, "user 3"), stored);
+        assertEquals(3, singleFlight.loadCount());
+        assertEquals(1, singleFlight.coalescedCount());
+    }
+
+    @Test
+    void load_ForDifferentKeys_ShouldNotCoalesce() {
+        // Act
+        String first = singleFlight.load(1L, () -> "user 1");
+        String second = singleFlight.load(2L, () -> "user 2");
+        String third = singleFlight.load(1L, () -> "user 1 again");
+
+        // Assert
+        assertEquals("user 1", first);
+        assertEquals("user 2", second);
+        assertEquals("user 1 again", third);
+        assertEquals(3, singleFlight.loadCount());
+        assertEquals(0, singleFlight.coalescedCount());
+    }
+
+    private List<Future<String>> startCallers(ExecutorService executor, Long key, Supplier<String> loader) {
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.load(key, loader)));
+        }
+        return results;
+    }
+
+    private String blockingLoad(String value) {
+        loads.incrementAndGet();
+        try {
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return value;
+    }
+
+    private void awaitCoalesced(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.coalescedCount() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
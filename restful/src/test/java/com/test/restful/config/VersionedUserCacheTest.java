@@ -0,0 +1,100 @@
+package com.test.restful.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.test.restful.model.User;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VersionedUserCacheTest {
+
+    private final VersionedUserCache cache = new VersionedUserCache("users", Caffeine.newBuilder().build(), true);
+
+    @Test
+    void put_WithOlderVersionOfSameUser_ShouldKeepNewerVersion() {
+        // Arrange
+        cache.put(1L, user(1L, 5L));
+
+        // Act
+        cache.put(1L, user(1L, 4L));
+
+        // Assert
+        assertEquals(5L, cache.get(1L, User.class).getVersion());
+    }
+
+    @Test
+    void put_WithNewerVersionOrOtherUser_ShouldReplace() {
+        // Arrange
+        cache.put("bret", user(1L, 5L));
+
+        // Act
+        cache.put("bret", user(1L, 6L));
+        cache.put("bret", user(2L, 1L));
+
+        // Assert
+        assertEquals(2L, cache.get("bret", User.class).getId());
+    }
+
+    @Test
+    void put_AfterEvictDeleted_ShouldNotCacheDeletedUser() {
+        // Arrange
+        User loadedBeforeDelete = user(1L, 5L);
+        cache.put(1L, user(1L, 5L));
+
+        // Act
+        cache.evictDeleted(1L, 1L);
+        cache.put(1L, loadedBeforeDelete);
+
+        // Assert
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void put_AfterEvictBefore_ShouldRejectOlderVersionsOfThatUserOnly() {
+        // Arrange
+        cache.evictBefore("bret", 1L, 6L);
+
+        // Act
+        cache.put("bret", user(1L, 5L));
+        User rejected = cache.get("bret", User.class);
+        cache.put("bret", user(2L, 1L));
+
+        // Assert
+        assertNull(rejected);
+        assertEquals(2L, cache.get("bret", User.class).getId());
+    }
+
+    @Test
+    void put_AfterEvictBefore_ShouldAcceptEvictingVersion() {
+        // Arrange
+        cache.evictBefore(1L, 1L, 6L);
+
+        // Act
+        cache.put(1L, user(1L, 6L));
+
+        // Assert
+        assertEquals(6L, cache.get(1L, User.class).getVersion());
+    }
+
+    @Test
+    void get_ShouldHandOutCopiesOfCachedUser() {
+        // Arrange
+        User user = user(1L, 5L);
+        user.setPhone("555-0100");
+        cache.put(1L, user);
+
+        // Act
+        user.setPhone("changed after put");
+        cache.get(1L, User.class).setPhone("changed after get");
+
+        // Assert
+        assertEquals("555-0100", cache.get(1L, User.class).getPhone());
+    }
+
+    private static User user(Long id, Long version) {
+        User user = new User();
+        user.setId(id);
+        user.setVersion(version);
+        return user;
+    }
+}
@@ -1,36 +1,61 @@
 package com.test.restful.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.test.restful.exception.PreconditionFailedException;
 import com.test.restful.exception.ResourceNotFoundException;
 import com.test.restful.exception.UserAlreadyExistsException;
 import com.test.restful.model.User;
+import com.test.restful.model.UserBatch;
+import com.test.restful.model.UserField;
+import com.test.restful.service.UserExportService;
+import com.test.restful.service.UserCursor;
+import com.test.restful.service.UserImportService;
+import com.test.restful.service.UserSearchService;
 import com.test.restful.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(UserController.class)
+@Import(UserLinkAssembler.class)
 public class UserControllerTest {
 
     @Autowired
@@ -39,9 +64,20 @@ public class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private UserImportService userImportService;
+
+    @MockBean
+    private UserExportService userExportService;
+
+    @MockBean
+    private UserSearchService userSearchService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    private static final Instant LAST_MODIFIED = Instant.parse("2024-01-01T00:00:00Z");
+
     private User user;
 
     @BeforeEach
@@ -51,6 +87,8 @@ public class UserControllerTest {
         user.setName("Test User");
         user.setUsername("testuser");
         user.setEmail("test@example.com");
+        user.setVersion(3L);
+        user.setLastModified(LAST_MODIFIED);
     }
 
     @Test
@@ -69,6 +107,127 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.data[0].content.username", is("testuser")));
     }
 
+    @Test
+    @WithMockUser
+    void getAllUsers_ShouldAddSelfLinkToEachUser() throws Exception {
+        // Arrange
+        when(userService.getAllUsers()).thenReturn(Arrays.asList(user));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].username", is("testuser")))
+                .andExpect(jsonPath("$.data[0].links[0].href", is("http://localhost/api/users/1")))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
+    }
+
+    @Test
+    @WithMockUser
+    void getAllUsers_WithPlainProfile_ShouldOmitLinks() throws Exception {
+        // Arrange
+        when(userService.getAllUsers()).thenReturn(Arrays.asList(user));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users")
+                .header("Accept", "application/json;profile=\"plain\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].username", is("testuser")))
+                .andExpect(jsonPath("$.data[0].links").doesNotExist())
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
+    }
+
+    @Test
+    @WithMockUser
+    void getAllUsers_ShouldReturnCollectionETagWithoutLastModified() throws Exception {
+        // Arrange
+        when(userService.getUsersRevision()).thenReturn(42L);
+        when(userService.getAllUsers()).thenReturn(Arrays.asList(user));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"42\""))
+                .andExpect(header().doesNotExist("Last-Modified"));
+    }
+
+    @Test
+    @WithMockUser
+    void getAllUsers_WithMatchingIfNoneMatch_ShouldReturnNotModifiedWithoutLoadingUsers() throws Exception {
+        // Arrange
+        when(userService.getUsersRevision()).thenReturn(42L);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users")
+                .accept(MediaType.APPLICATION_JSON)
+                .header("If-None-Match", "\"42\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
+
+        verify(userService, never()).getAllUsers();
+    }
+
+    @Test
+    @WithMockUser
+    void getAllUsers_WithStaleIfNoneMatch_ShouldReturnUsersAndCurrentETag() throws Exception {
+        // Arrange
+        when(userService.getUsersRevision()).thenReturn(43L);
+        when(userService.getAllUsers()).thenReturn(Arrays.asList(user));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users")
+                .accept(MediaType.APPLICATION_JSON)
+                .header("If-None-Match", "\"42\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"43\""))
+                .andExpect(jsonPath("$.data", hasSize(1)));
+    }
+
+    @Test
+    @WithMockUser
+    void getAllUsers_WithOnlyIfModifiedSince_ShouldReturnUsers() throws Exception {
+        // Arrange
+        when(userService.getAllUsers()).thenReturn(Arrays.asList(user));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users")
+                .accept(MediaType.APPLICATION_JSON)
+                .header("If-Modified-Since", "Wed, 01 Jan 2025 00:00:00 GMT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)));
+    }
+
+    @Test
+    @WithMockUser
+    void getAllUsers_WithFields_ShouldReturnOnlyRequestedFields() throws Exception {
+        // Arrange
+        when(userService.getAllUsers(EnumSet.of(UserField.ID, UserField.USERNAME, UserField.EMAIL)))
+                .thenReturn(List.of(Map.of("id", 1L, "username", "testuser", "email", "test@example.com")));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users")
+                .param("fields", "username,email")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].username", is("testuser")))
+                .andExpect(jsonPath("$.data[0].name").doesNotExist())
+                .andExpect(jsonPath("$.data[0].links").doesNotExist());
+
+        verify(userService, never()).getAllUsers();
+    }
+
+    @Test
+    @WithMockUser
+    void getUserById_WithUnknownField_ShouldReturnBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/users/1")
+                .param("fields", "username,password")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser
     void getAllUsersPaginated_ShouldReturnPaginatedUsers() throws Exception {
@@ -86,6 +245,56 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.data.content[0].username", is("testuser")));
     }
 
+    @Test
+    @WithMockUser
+    void getUsersByCursor_ShouldReturnSliceWithNextCursorAndNoCount() throws Exception {
+        // Arrange
+        when(userService.getUsersAfter(isNull(), anyInt()))
+                .thenReturn(new SliceImpl<>(Arrays.asList(user), Pageable.ofSize(1), true));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/paginated")
+                .param("cursor", "")
+                .param("size", "1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].username", is("testuser")))
+                .andExpect(jsonPath("$.data.hasNext", is(true)))
+                .andExpect(jsonPath("$.data.nextCursor", is(UserCursor.encode(1L))))
+                .andExpect(jsonPath("$.data.totalElements").doesNotExist());
+
+        verify(userService, never()).countUsers();
+    }
+
+    @Test
+    @WithMockUser
+    void getUsersByCursor_WithCursorAndCount_ShouldSeekAndCount() throws Exception {
+        // Arrange
+        when(userService.getUsersAfter(1L, 10))
+                .thenReturn(new SliceImpl<>(Arrays.asList(user), Pageable.ofSize(10), false));
+        when(userService.countUsers()).thenReturn(42L);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/paginated")
+                .param("cursor", UserCursor.encode(1L))
+                .param("count", "true")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.hasNext", is(false)))
+                .andExpect(jsonPath("$.data.nextCursor", nullValue()))
+                .andExpect(jsonPath("$.data.totalElements", is(42)));
+    }
+
+    @Test
+    @WithMockUser
+    void getUsersByCursor_WithInvalidCursor_ShouldReturnBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/users/paginated")
+                .param("cursor", "not-a-cursor")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser
     void getUserById_WhenUserExists_ShouldReturnUser() throws Exception {
@@ -100,6 +309,98 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.data.content.username", is("testuser")));
     }
 
+    @Test
+    @WithMockUser
+    void getUsersByIds_ShouldReturnUsersAndMissingIds() throws Exception {
+        // Arrange
+        when(userService.getUsersByIds(any())).thenReturn(new UserBatch<>(List.of(user), List.of(9L)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/batch").param("ids", "1,9,1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.users[0].username", is("testuser")))
+                .andExpect(jsonPath("$.data.users[0].links[0].href", is("http://localhost/api/users/1")))
+                .andExpect(jsonPath("$.data.notFound[0]", is(9)))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andExpect(jsonPath("$.message", is("Retrieved 1 of 2 users")));
+
+        verify(userService).getUsersByIds(new LinkedHashSet<>(List.of(1L, 9L)));
+    }
+
+    @Test
+    @WithMockUser
+    void getUsersByIdsInBody_ShouldReturnUsers() throws Exception {
+        // Arrange
+        when(userService.getUsersByIds(any())).thenReturn(new UserBatch<>(List.of(user), List.of()));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/users/batch")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.users", hasSize(1)))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
+    }
+
+    @Test
+    @WithMockUser
+    void getUsersByIds_WithPlainProfile_ShouldOmitLinks() throws Exception {
+        // Arrange
+        when(userService.getUsersByIds(any())).thenReturn(new UserBatch<>(List.of(user), List.of()));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/batch").param("ids", "1")
+                .header("Accept", "application/json;profile=\"plain\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.users[0].username", is("testuser")))
+                .andExpect(jsonPath("$.data.users[0].links").doesNotExist())
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
+    }
+
+    @Test
+    @WithMockUser
+    void getUsersByIds_WithTooManyIds_ShouldReturnBadRequest() throws Exception {
+        // Arrange
+        String ids = LongStream.rangeClosed(1, 1001)
+                .mapToObj(Long::toString).collect(Collectors.joining(","));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/batch").param("ids", ids))
+                .andExpect(status().isBadRequest());
+
+        verify(userService, never()).getUsersByIds(any());
+    }
+
+    @Test
+    @WithMockUser
+    void getUserById_WithMatchingIfNoneMatch_ShouldReturnNotModified() throws Exception {
+        // Arrange
+        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/1")
+                .header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithMockUser
+    void getUserById_WithStaleIfNoneMatch_ShouldReturnUserAndCurrentETag() throws Exception {
+        // Arrange
+        when(userService.getUserById(1L)).thenReturn(Optional.of(user));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/users/1")
+                .header("If-None-Match", "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.data.username", is("testuser")))
+                .andExpect(jsonPath("$.data.version").doesNotExist());
+    }
+
     @Test
     @WithMockUser
     void getUserById_WhenUserDoesNotExist_ShouldReturnNotFound() throws Exception {
@@ -145,7 +446,7 @@ public class UserControllerTest {
     @WithMockUser
     void updateUser_WhenUserExists_ShouldUpdateUser() throws Exception {
         // Arrange
-        when(userService.updateUser(anyLong(), any(User.class))).thenReturn(user);
+        when(userService.updateUser(anyLong(), any(User.class), any())).thenReturn(user);
 
         // Act & Assert
         mockMvc.perform(put("/api/users/1")
@@ -160,7 +461,7 @@ public class UserControllerTest {
     @WithMockUser
     void updateUser_WhenUserDoesNotExist_ShouldReturnNotFound() throws Exception {
         // Arrange
-        when(userService.updateUser(anyLong(), any(User.class)))
+        when(userService.updateUser(anyLong(), any(User.class), any()))
                 .thenThrow(new ResourceNotFoundException("User not found"));
 
         // Act & Assert
@@ -170,6 +471,76 @@ public class UserControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser
+    void updateUser_WithIfMatch_ShouldPassExpectedVersionAndReturnNewETag() throws Exception {
+        // Arrange
+        User updated = new User();
+        updated.setId(1L);
+        updated.setUsername("testuser");
+        updated.setVersion(4L);
+        when(userService.updateUser(eq(1L), any(User.class), eq(Set.of(3L)))).thenReturn(updated);
+
+        // Act & Assert
+        mockMvc.perform(put("/api/users/1")
+                .with(csrf())
+                .header("If-Match", "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    @WithMockUser
+    void updateUser_WithIfMatchList_ShouldPassEveryStrongTag() throws Exception {
+        // Arrange
+        User updated = new User();
+        updated.setId(1L);
+        updated.setUsername("testuser");
+        updated.setVersion(5L);
+        when(userService.updateUser(eq(1L), any(User.class), eq(Set.of(3L, 4L)))).thenReturn(updated);
+
+        // Act & Assert
+        mockMvc.perform(put("/api/users/1")
+                .with(csrf())
+                .header("If-Match", "\"3\", W/\"7\", \"4\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"5\""));
+    }
+
+    @Test
+    @WithMockUser
+    void updateUser_WithStaleIfMatch_ShouldReturnPreconditionFailed() throws Exception {
+        // Arrange
+        when(userService.updateUser(eq(1L), any(User.class), eq(Set.of(2L))))
+                .thenThrow(new PreconditionFailedException("User 1 has been modified since version 2"));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/users/1")
+                .with(csrf())
+                .header("If-Match", "\"2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @WithMockUser
+    void updateUser_WithWeakIfMatch_ShouldReturnPreconditionFailedWithoutUpdating() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put("/api/users/1")
+                .with(csrf())
+                .header("If-Match", "W/\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(userService, never()).updateUser(anyLong(), any(User.class), any());
+    }
+
     @Test
     @WithMockUser
     void deleteUser_WhenUserExists_ShouldDeleteUser() throws Exception {
@@ -2,8 +2,10 @@ package com.test.restful.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.test.restful.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
@@ -11,8 +13,16 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.Duration;
+
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -26,6 +36,12 @@ public class UserApiIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.users.export.timeout}")
+    private Duration exportTimeout;
+
     @Test
     @WithMockUser
     public void getAllUsers_ShouldReturnInitialUsers() throws Exception {
@@ -36,6 +52,35 @@ public class UserApiIntegrationTest {
                 .andExpect(jsonPath("$.data", hasSize(3)));
     }
 
+    @Test
+    @WithMockUser
+    public void exportUsers_ShouldStreamUsersAsNdjson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"username\":\"Bret\"")))
+                .andExpect(content().string(containsString("\"username\":\"Samantha\"")));
+    }
+
+    @Test
+    @WithMockUser
+    public void exportUsers_ShouldRunUnderExportTimeoutRatherThanContainerDefault() throws Exception {
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert: Tomcat would otherwise end the stream after 30 s
+        long timeout = result.getRequest().getAsyncContext().getTimeout();
+        assertEquals(exportTimeout.toMillis(), timeout);
+        assertTrue(timeout > Duration.ofSeconds(30).toMillis());
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+    }
+
     @Test
     @WithMockUser
     public void getUserById_WithValidId_ShouldReturnUser() throws Exception {
@@ -46,6 +91,24 @@ public class UserApiIntegrationTest {
                 .andExpect(jsonPath("$.data.content.username", is("Bret")));
     }
 
+    @Test
+    @WithMockUser
+    public void getUsersByIds_ShouldReturnUsersInRequestOrderAndMissingIds() throws Exception {
+        mockMvc.perform(get("/api/users/batch").param("ids", "3,999,1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.users[0].id", is(3)))
+                .andExpect(jsonPath("$.data.users[1].username", is("Bret")))
+                .andExpect(jsonPath("$.data.notFound[0]", is(999)));
+
+        mockMvc.perform(post("/api/users/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 3]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.users[0].username", is("Bret")))
+                .andExpect(jsonPath("$.data.users[1].id", is(3)))
+                .andExpect(jsonPath("$.data.notFound", hasSize(0)));
+    }
+
     @Test
     @WithMockUser
     public void getUserById_WithInvalidId_ShouldReturnNotFound() throws Exception {
@@ -54,6 +117,192 @@ public class UserApiIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser
+    public void getUserByUsername_ShouldIgnoreCase() throws Exception {
+        mockMvc.perform(get("/api/users/by-username/bret")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.username", is("Bret")));
+    }
+
+    @Test
+    @WithMockUser
+    public void getUserByEmail_AfterEmailChange_ShouldNotServeCachedOldEmail() throws Exception {
+        User newUser = new User();
+        newUser.setName("Lookup User");
+        newUser.setUsername("lookupuser");
+        newUser.setEmail("lookup@example.com");
+
+        MvcResult created = mockMvc.perform(post("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(newUser)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        Long id = objectMapper.readTree(created.getResponse().getContentAsString()).path("data").path("id").asLong();
+
+        // Cache the lookup under the old email
+        mockMvc.perform(get("/api/users/by-email/Lookup@Example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.id", is(id.intValue())));
+
+        newUser.setEmail("moved@example.com");
+        mockMvc.perform(put("/api/users/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(newUser)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/users/by-email/lookup@example.com"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/users/by-email/moved@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.id", is(id.intValue())));
+
+        mockMvc.perform(delete("/api/users/" + id))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser
+    public void createUser_WithUsernameDifferingOnlyInCase_ShouldReturnConflict() throws Exception {
+        User newUser = new User();
+        newUser.setName("Case Clash");
+        newUser.setUsername("BRET");
+        newUser.setEmail("caseclash@example.com");
+
+        mockMvc.perform(post("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(newUser)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.messages[0]", is("Username already exists: BRET")));
+    }
+
+    @Test
+    @WithMockUser
+    public void deleteUsers_WithIds_ShouldDeleteExistingAndReportMissing() throws Exception {
+        Long first = createUser("batchdelete1");
+        Long second = createUser("batchdelete2");
+
+        mockMvc.perform(delete("/api/users")
+                .param("ids", first + "," + second + ",999999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.deleted", hasSize(2)))
+                .andExpect(jsonPath("$.data.notFound[0]", is(999999)));
+
+        mockMvc.perform(get("/api/users/" + first))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/users/by-username/batchdelete2"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser
+    public void searchUsersByText_ShouldFindCreatedUsersAndForgetDeletedOnes() throws Exception {
+        Long id = createUser("fulltextuser");
+
+        mockMvc.perform(get("/api/users/search")
+                .param("q", "fulltext"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].user.username", is("fulltextuser")));
+
+        mockMvc.perform(get("/api/users/search")
+                .param("q", "graham"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].user.username", is("Bret")));
+
+        mockMvc.perform(delete("/api/users/" + id))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/users/search")
+                .param("q", "fulltextuser"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(0)));
+    }
+
+    @Test
+    @WithMockUser
+    public void findUsersNear_ShouldReturnUsersWithinRadiusNearestFirst() throws Exception {
+        mockMvc.perform(get("/api/users/near")
+                .param("lat", "-37.30")
+                .param("lng", "81.15")
+                .param("radiusKm", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.data[0].user.username", is("Bret")))
+                .andExpect(jsonPath("$.data[0].user.address.geo.lat", is("-37.3159")))
+                .andExpect(jsonPath("$.data[0].distanceKm", lessThan(2.0)));
+
+        mockMvc.perform(get("/api/users/near")
+                .param("lat", "91")
+                .param("lng", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void httpBasic_WithRememberedCredentials_ShouldStillRejectWrongPasswords() throws Exception {
+        mockMvc.perform(get("/api/users/1").with(httpBasic("user", "password")))
+                .andExpect(status().isOk());
+        double hits = authenticationCacheHits();
+        mockMvc.perform(get("/api/users/1").with(httpBasic("user", "password")))
+                .andExpect(status().isOk());
+        // The repeated credentials were answered by the caching provider, not checked again
+        assertEquals(hits + 1, authenticationCacheHits());
+        mockMvc.perform(get("/api/users/1").with(httpBasic("user", "wrong")))
+                .andExpect(status().isUnauthorized());
+        assertEquals(hits + 1, authenticationCacheHits());
+        mockMvc.perform(post("/api/users/search/index/rebuild").with(httpBasic("admin", "admin")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser
+    public void rebuildSearchIndex_WithoutAdminRole_ShouldBeForbidden() throws Exception {
+        mockMvc.perform(post("/api/users/search/index/rebuild"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser
+    public void patchUser_ShouldChangeOnlySuppliedFields() throws Exception {
+        Long id = createUser("patchuser");
+
+        MvcResult before = mockMvc.perform(get("/api/users/" + id))
+                .andExpect(status().isOk())
+                .andReturn();
+        String eTag = before.getResponse().getHeader("ETag");
+
+        mockMvc.perform(patch("/api/users/" + id)
+                .contentType("application/merge-patch+json")
+                .header("If-Match", eTag)
+                .content("{\"phone\":\"555-0100\",\"address\":{\"city\":\"Patchville\"}}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(eTag)))
+                .andExpect(jsonPath("$.data.phone", is("555-0100")))
+                .andExpect(jsonPath("$.data.address.city", is("Patchville")))
+                .andExpect(jsonPath("$.data.username", is("patchuser")))
+                .andExpect(jsonPath("$.data.email", is("patchuser@example.com")));
+
+        // The old ETag no longer matches
+        mockMvc.perform(patch("/api/users/" + id)
+                .contentType("application/merge-patch+json")
+                .header("If-Match", eTag)
+                .content("{\"phone\":null}"))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(patch("/api/users/" + id)
+                .contentType("application/merge-patch+json")
+                .content("{\"email\":\"not-an-email\"}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(patch("/api/users/" + id)
+                .contentType("application/merge-patch+json")
+                .content("{\"address\":{\"geo\":{\"lat\":\"north\",\"lng\":\"1\"}}}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(delete("/api/users/" + id))
+                .andExpect(status().isOk());
+    }
+
     @Test
     @WithMockUser
     public void createUser_WithValidData_ShouldCreateAndReturnUser() throws Exception {
@@ -70,6 +319,21 @@ public class UserApiIntegrationTest {
                 .andExpect(jsonPath("$.data.content.username", is("johndoe")));
     }
 
+    @Test
+    @WithMockUser
+    public void createUser_WithTakenEmail_ShouldReturnConflictNamingTheField() throws Exception {
+        User newUser = new User();
+        newUser.setName("Email Clash");
+        newUser.setUsername("emailclash");
+        newUser.setEmail("Shanna@melissa.tv");
+
+        mockMvc.perform(post("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(newUser)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.messages[0]", is("Email already exists: Shanna@melissa.tv")));
+    }
+
     @Test
     @WithMockUser
     public void createUser_WithInvalidData_ShouldReturnBadRequest() throws Exception {
@@ -136,4 +400,23 @@ public class UserApiIntegrationTest {
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    private Long createUser(String username) throws Exception {
+        User newUser = new User();
+        newUser.setName(username);
+        newUser.setUsername(username);
+        newUser.setEmail(username + "@example.com");
+
+        MvcResult result = mockMvc.perform(post("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(newUser)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).path("data").path("id").asLong();
+    }
+
+    private double authenticationCacheHits() {
+        return meterRegistry.get("cache.gets").tags("cache", "authentications", "result", "hit")
+                .functionCounter().count();
+    }
+}
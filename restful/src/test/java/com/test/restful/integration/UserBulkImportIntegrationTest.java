@@ -0,0 +1,74 @@
+package com.test.restful.integration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.users.import.chunk-size=2")
+@AutoConfigureMockMvc
+@DirtiesContext
+public class UserBulkImportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser
+    public void importUsers_WithNdjson_ShouldImportValidRecordsAndReportErrors() throws Exception {
+        // Warm the user list snapshot so the import has to invalidate it
+        mockMvc.perform(get("/api/users")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        String body = String.join("\n",
+                "{\"name\":\"Bulk One\",\"username\":\"bulk1\",\"email\":\"bulk1@example.com\"}",
+                "{\"name\":\"No Email\",\"username\":\"bulk2\"}",
+                "{\"name\":\"Bulk Three\",\"username\":\"bulk3\",\"email\":\"bulk3@example.com\"}",
+                "{\"name\":\"Taken\",\"username\":\"Bret\",\"email\":\"bret@example.com\"}",
+                "{\"name\":\"Duplicate\",\"username\":\"bulk1\",\"email\":\"other@example.com\"}");
+
+        mockMvc.perform(post("/api/users/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.received", is(5)))
+                .andExpect(jsonPath("$.data.imported", is(2)))
+                .andExpect(jsonPath("$.data.failed", is(3)))
+                .andExpect(jsonPath("$.data.errors[*].index", hasSize(3)))
+                .andExpect(jsonPath("$.data.errors[0].index", is(1)))
+                .andExpect(jsonPath("$.data.errors[1].messages[0]", is("Username already exists: Bret")))
+                .andExpect(jsonPath("$.data.errors[2].messages[0]", is("Username already exists: bulk1")));
+
+        mockMvc.perform(get("/api/users")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[*].username", hasItems("bulk1", "bulk3")));
+    }
+
+    @Test
+    @WithMockUser
+    public void importUsers_WithJsonArray_ShouldImportAllRecords() throws Exception {
+        String body = "[{\"name\":\"Array One\",\"username\":\"array1\",\"email\":\"array1@example.com\"},"
+                + "{\"name\":\"Array Two\",\"username\":\"array2\",\"email\":\"array2@example.com\"}]";
+
+        mockMvc.perform(post("/api/users/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.imported", is(2)))
+                .andExpect(jsonPath("$.data.failed", is(0)));
+    }
+}
@@ -0,0 +1,222 @@
+package com.test.restful.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.test.restful.config.CacheConfig;
+import com.test.restful.entity.UserEntity;
+import com.test.restful.mapper.UserMapper;
+import com.test.restful.model.User;
+import com.test.restful.repository.UserJpaRepository;
+import com.test.restful.service.UserImportService;
+import com.test.restful.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest
+public class UserCacheConsistencyIntegrationTest {
+
+    private static final int USERS = 4;
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 100;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserJpaRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoSpyBean
+    private UserMapper userMapper;
+
+    private final List<Long> createdIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        userService.deleteUsers(createdIds);
+    }
+
+    @Test
+    void readAfterWrite_ShouldBeServedFromCache() {
+        // Arrange
+        User created = userService.createUser(newUser("writethrough"));
+        createdIds.add(created.getId());
+        User changes = copy(userService.getUserById(created.getId()).orElseThrow());
+        changes.setPhone("555-0199");
+        long hitsBefore = stats().hitCount();
+
+        // Act
+        User updated = userService.updateUser(created.getId(), changes);
+        User read = userService.getUserById(created.getId()).orElseThrow();
+
+        // Assert
+        assertEquals(hitsBefore + 1, stats().hitCount());
+        assertEquals(updated.getVersion(), read.getVersion());
+        assertEquals("555-0199", read.getPhone());
+        assertEquals(updated.getVersion(), userService.getUserByUsername("WRITETHROUGH").orElseThrow().getVersion());
+    }
+
+    @Test
+    void importedUsers_ShouldNotBeWrittenThroughToCache() throws Exception {
+        // Arrange
+        String body = "{\"name\":\"Imported\",\"username\":\"importednotcached\","
+                + "\"email\":\"importednotcached@example.com\"}";
+
+        // Act
+        userImportService.importUsers(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        Long id = userRepository.findByUsernameKey("importednotcached").orElseThrow().getId();
+        createdIds.add(id);
+
+        // Assert
+        assertNull(cacheManager.getCache(CacheConfig.USERS).get(id));
+        assertNull(cacheManager.getCache(CacheConfig.USERS_BY_USERNAME).get("importednotcached"));
+        assertNull(cacheManager.getCache(CacheConfig.USERS_BY_EMAIL).get("importednotcached@example.com"));
+        assertEquals("importednotcached", userService.getUserById(id).orElseThrow().getUsername());
+    }
+
+    @Test
+    void deleteCommittingWhileReadsLoad_ShouldLeaveNoDeletedUserCached() throws Exception {
+        // Arrange
+        User created = userService.createUser(newUser("deletedwhileloading"));
+        Long id = created.getId();
+        createdIds.add(id);
+        Cache users = cacheManager.getCache(CacheConfig.USERS);
+        Cache usersByUsername = cacheManager.getCache(CacheConfig.USERS_BY_USERNAME);
+        // The reads have to miss and load for their puts to race the delete
+        users.evict(id);
+        usersByUsername.evict("deletedwhileloading");
+
+        Thread testThread = Thread.currentThread();
+        CountDownLatch loaded = new CountDownLatch(2);
+        CountDownLatch deleted = new CountDownLatch(1);
+        // Holds the reads between loading the row and caching it until the delete has committed
+        doAnswer(invocation -> {
+            Object user = invocation.callRealMethod();
+            if (Thread.currentThread() != testThread) {
+                loaded.countDown();
+                assertTrue(deleted.await(5, TimeUnit.SECONDS));
+            }
+            return user;
+        }).when(userMapper).toDto(any(UserEntity.class));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Optional<User>> byId = executor.submit(() -> userService.getUserById(id));
+            Future<Optional<User>> byUsername = executor.submit(() -> userService.getUserByUsername("deletedwhileloading"));
+            assertTrue(loaded.await(5, TimeUnit.SECONDS));
+
+            // Act
+            userService.deleteUser(id);
+            deleted.countDown();
+
+            // Assert
+            assertTrue(byId.get(5, TimeUnit.SECONDS).isPresent());
+            assertTrue(byUsername.get(5, TimeUnit.SECONDS).isPresent());
+        } finally {
+            executor.shutdown();
+        }
+        assertNull(users.get(id), "Deleted user still cached by id");
+        assertNull(usersByUsername.get("deletedwhileloading"), "Deleted user still cached by username");
+        assertTrue(userService.getUserById(id).isEmpty());
+    }
+
+    @Test
+    void concurrentWritesAndReads_ShouldLeaveCacheMatchingDatabase() throws Exception {
+        // Arrange
+        for (int i = 0; i < USERS; i++) {
+            createdIds.add(userService.createUser(newUser("consistency" + i)).getId());
+        }
+
+        // Act
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < OPERATIONS; i++) {
+                        Long id = createdIds.get(random.nextInt(USERS));
+                        if (random.nextBoolean()) {
+                            try {
+                                userService.patchUser(id,
+                                        objectMapper.valueToTree(Map.of("phone", "p-" + random.nextInt(1_000_000))), null);
+                            } catch (ObjectOptimisticLockingFailureException e) {
+                                // A concurrent patch of the same user won
+                            }
+                        } else {
+                            User read = userService.getUserById(id).orElseThrow();
+                            // A read never goes back in time behind the committed row it could see
+                            UserEntity committed = userRepository.findById(id).orElseThrow();
+                            assertTrue(read.getVersion() <= committed.getVersion());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Assert
+        Cache users = cacheManager.getCache(CacheConfig.USERS);
+        for (Long id : createdIds) {
+            UserEntity committed = userRepository.findById(id).orElseThrow();
+            User cached = users.get(id, User.class);
+            if (cached != null) {
+                assertEquals(committed.getVersion(), cached.getVersion(), "Stale cache entry for user " + id);
+                assertEquals(committed.getPhone(), cached.getPhone());
+            }
+            assertEquals(committed.getVersion(), userService.getUserById(id).orElseThrow().getVersion());
+        }
+    }
+
+    private com.github.benmanes.caffeine.cache.stats.CacheStats stats() {
+        return ((CaffeineCache) cacheManager.getCache(CacheConfig.USERS)).getNativeCache().stats();
+    }
+
+    private User copy(User user) {
+        return objectMapper.convertValue(objectMapper.valueToTree(user), User.class);
+    }
+
+    private static User newUser(String username) {
+        User user = new User();
+        user.setName("Cache " + username);
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        return user;
+    }
+}
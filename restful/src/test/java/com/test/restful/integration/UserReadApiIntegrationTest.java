@@ -0,0 +1,117 @@
+package com.test.restful.integration;
+
+import com.test.restful.config.CacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class UserReadApiIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void clearCaches() {
+        cacheManager.getCache(CacheConfig.USERS).clear();
+        cacheManager.getCache(CacheConfig.USER_LIST).clear();
+    }
+
+    @Test
+    @WithMockUser
+    public void getUser_WhenNotCached_ShouldLoadAsynchronously() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/async/users/1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is(true)))
+                .andExpect(jsonPath("$.data.username", is("Bret")));
+    }
+
+    @Test
+    @WithMockUser
+    public void getUser_WhenCached_ShouldAnswerOnRequestThread() throws Exception {
+        // Arrange
+        perform(get("/api/async/users/1"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/async/users/1"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.username", is("Bret")));
+    }
+
+    @Test
+    @WithMockUser
+    public void getUser_WithUnknownId_ShouldReturnNotFound() throws Exception {
+        perform(get("/api/async/users/999"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status", is(404)))
+                .andExpect(jsonPath("$.path", is("/api/async/users/999")));
+    }
+
+    @Test
+    @WithMockUser
+    public void getUser_WithNonNumericId_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/async/users/abc"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.messages[0]", is("User ID must be a number")));
+    }
+
+    @Test
+    @WithMockUser
+    public void getUsers_ShouldReturnAllUsersAndCacheThem() throws Exception {
+        perform(get("/api/async/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].username", is("Bret")))
+                .andExpect(jsonPath("$.data[?(@.username == 'Samantha')]", hasSize(1)));
+
+        mockMvc.perform(get("/api/async/users"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(jsonPath("$.data[0].username", is("Bret")));
+    }
+
+    @Test
+    @WithMockUser
+    public void streamUsers_ShouldWriteNdjson() throws Exception {
+        perform(get("/api/async/users/stream"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"username\":\"Bret\"")))
+                .andExpect(content().string(containsString("\"username\":\"Samantha\"")));
+    }
+
+    @Test
+    public void getUser_WithoutAuthentication_ShouldBeUnauthorized() throws Exception {
+        mockMvc.perform(get("/api/async/users/1"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    // Completes the request whether it was answered from a cache or asynchronously
+    private ResultActions perform(MockHttpServletRequestBuilder request) throws Exception {
+        ResultActions actions = mockMvc.perform(request);
+        MvcResult result = actions.andReturn();
+        return result.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(result)) : actions;
+    }
+}
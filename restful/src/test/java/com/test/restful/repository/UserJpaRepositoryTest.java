@@ -0,0 +1,292 @@
+package com.test.restful.repository;
+
+import com.test.restful.entity.AddressEntity;
+import com.test.restful.entity.CompanyEntity;
+import com.test.restful.entity.GeoEntity;
+import com.test.restful.entity.UserEntity;
+import com.test.restful.mapper.UserMapper;
+import com.test.restful.model.User;
+import com.test.restful.model.UserField;
+import com.test.restful.model.UserSearchCriteria;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class UserJpaRepositoryTest {
+
+    private static final int USER_COUNT = 25;
+
+    @Autowired
+    private UserJpaRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < USER_COUNT; i++) {
+            userRepository.save(user(i));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAll_ShouldLoadUsersAndAssociationsInOneStatement() {
+        // Act
+        List<UserEntity> users = userRepository.findAll();
+        users.forEach(UserJpaRepositoryTest::touchAssociations);
+
+        // Assert
+        assertEquals(USER_COUNT, users.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAllPageable_ShouldCostOneSelectPlusCount() {
+        // Act
+        Page<UserEntity> page = userRepository.findAll(PageRequest.of(1, 10, Sort.by("id")));
+        page.forEach(UserJpaRepositoryTest::touchAssociations);
+
+        // Assert
+        assertEquals(10, page.getNumberOfElements());
+        assertEquals(USER_COUNT, page.getTotalElements());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findById_ShouldLoadUserAndAssociationsInOneStatement() {
+        // Arrange
+        Long id = userRepository.findAll().get(0).getId();
+        entityManager.clear();
+        statistics.clear();
+
+        // Act
+        UserEntity user = userRepository.findById(id).orElseThrow();
+        touchAssociations(user);
+
+        // Assert
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void saveAll_ShouldSendInsertsInJdbcBatches() {
+        // Arrange
+        List<UserEntity> users = new ArrayList<>();
+        for (int i = USER_COUNT; i < USER_COUNT + 100; i++) {
+            users.add(user(i));
+        }
+
+        // Act
+        userRepository.saveAll(users);
+        entityManager.flush();
+
+        // Assert: 400 rows across four tables, sent as a handful of batches plus sequence calls
+        assertEquals(400, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() < 30,
+                "Expected batched inserts but got " + statistics.getPrepareStatementCount() + " statements");
+    }
+
+    @Test
+    void findAllProjected_ShouldSelectOnlyRequestedColumnsWithoutLoadingEntities() {
+        // Act
+        List<Tuple> rows = userRepository.findAllProjected(EnumSet.of(UserField.ID, UserField.USERNAME));
+
+        // Assert
+        assertEquals(USER_COUNT, rows.size());
+        assertEquals(2, rows.get(0).getElements().size());
+        assertEquals("user0", rows.get(0).get("username"));
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findProjectedById_WithAddress_ShouldJoinAddressAndGeoOnly() {
+        // Arrange
+        Long id = userRepository.findAll().get(0).getId();
+        entityManager.clear();
+        statistics.clear();
+
+        // Act
+        Tuple row = userRepository.findProjectedById(id, EnumSet.of(UserField.ID, UserField.ADDRESS)).orElseThrow();
+
+        // Assert
+        assertEquals("City 0", row.get("address.city"));
+        assertNotNull(row.get("address.geo.lat"));
+        assertThrows(IllegalArgumentException.class, () -> row.get("company.name"));
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void saveAndFlush_WhenRowChangedConcurrently_ShouldFailVersionCheck() {
+        // Arrange: another writer bumps the version behind the loaded entity
+        UserEntity user = userRepository.findAll().get(0);
+        entityManager.createQuery("update UserEntity u set u.version = u.version + 1 where u.id = :id")
+                .setParameter("id", user.getId())
+                .executeUpdate();
+
+        // Act & Assert
+        user.setName("Lost update");
+        user.touch();
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> userRepository.saveAndFlush(user));
+    }
+
+    @Test
+    void saveAndFlush_WithUsernameOrEmailDifferingOnlyInCase_ShouldViolateUniqueConstraint() {
+        // Arrange
+        UserEntity sameUsername = user(USER_COUNT);
+        sameUsername.setUsername("USER0");
+        UserEntity sameEmail = user(USER_COUNT + 1);
+        sameEmail.setEmail("User1@Example.com");
+
+        // Act & Assert: uniqueness is case-insensitive by design, enforced on the key columns
+        DataIntegrityViolationException username = assertThrows(DataIntegrityViolationException.class,
+                () -> userRepository.saveAndFlush(sameUsername));
+        assertTrue(username.getMessage().toUpperCase().contains(UserEntity.USERNAME_CONSTRAINT.toUpperCase()));
+        entityManager.clear();
+        DataIntegrityViolationException email = assertThrows(DataIntegrityViolationException.class,
+                () -> userRepository.saveAndFlush(sameEmail));
+        assertTrue(email.getMessage().toUpperCase().contains(UserEntity.EMAIL_CONSTRAINT.toUpperCase()));
+        assertTrue(userRepository.findByUsernameKey(UserEntity.normalizeKey("User0")).isPresent());
+    }
+
+    @Test
+    void bulkDeletes_ShouldRemoveUsersAndOwnedRowsInFourStatementsAndOneBatch() {
+        // Arrange
+        List<Long> ids = userRepository.findAll().stream().limit(3).map(UserEntity::getId).toList();
+        entityManager.clear();
+        statistics.clear();
+
+        // Act
+        List<UserDeletionTarget> targets = userRepository.findDeletionTargets(ids);
+        List<Long> deleted = userRepository.deleteUsersById(ids);
+        userRepository.deleteAddressesByIdIn(targets.stream().map(UserDeletionTarget::addressId).toList());
+        userRepository.deleteGeosByIdIn(targets.stream().map(UserDeletionTarget::geoId).toList());
+        userRepository.deleteCompaniesByIdIn(targets.stream().map(UserDeletionTarget::companyId).toList());
+
+        // Assert: the user rows go in one JDBC batch, which Hibernate's statistics do not count
+        assertEquals(ids, deleted);
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(USER_COUNT - 3, userRepository.count());
+        for (String entity : List.of("AddressEntity", "GeoEntity", "CompanyEntity")) {
+            long rows = entityManager.createQuery("select count(e) from " + entity + " e", Long.class).getSingleResult();
+            assertEquals(USER_COUNT - 3, rows, entity);
+        }
+    }
+
+    @Test
+    void deleteUsersById_ShouldReportOnlyTheRowsItDeleted() {
+        // Arrange
+        List<Long> ids = userRepository.findAll().stream().limit(2).map(UserEntity::getId).toList();
+        userRepository.deleteUsersById(List.of(ids.get(0)));
+
+        // Act
+        List<Long> deleted = userRepository.deleteUsersById(List.of(ids.get(0), -1L, ids.get(1)));
+
+        // Assert
+        assertEquals(List.of(ids.get(1)), deleted);
+        assertEquals(USER_COUNT - 2, userRepository.count());
+    }
+
+    @Test
+    void applyChanges_WithOneAddressField_ShouldUpdateOnlyTheAddressRow() {
+        // Arrange
+        UserMapper mapper = new UserMapper();
+        UserEntity user = userRepository.findAll().get(0);
+        User changed = mapper.toDto(user);
+        changed.getAddress().setCity("Elsewhere");
+        statistics.clear();
+
+        // Act
+        boolean dirty = mapper.applyChanges(changed, user);
+        entityManager.flush();
+
+        // Assert
+        assertTrue(dirty);
+        assertEquals(1, statistics.getEntityUpdateCount());
+        assertFalse(mapper.applyChanges(mapper.toDto(user), user));
+    }
+
+    @Test
+    void findAllBySpecification_ShouldCombineFiltersAndFetchAssociations() {
+        // Arrange
+        UserSearchCriteria criteria = new UserSearchCriteria();
+        criteria.setCity("City 12");
+        criteria.setCompany("Company 12");
+        criteria.setUsernamePrefix("USER1");
+
+        // Act
+        Page<UserEntity> page = userRepository.findAll(UserSpecifications.matching(criteria), PageRequest.of(0, 10));
+        page.forEach(UserJpaRepositoryTest::touchAssociations);
+
+        // Assert
+        assertEquals(1, page.getTotalElements());
+        assertEquals("user12", page.getContent().get(0).getUsername());
+        // The page fits in one select, so no count query is needed
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAllBySpecification_WithNamePrefix_ShouldMatchWildcardsLiterally() {
+        // Act
+        Page<UserEntity> prefixed = userRepository.findAll(
+                UserSpecifications.nameStartsWith("User 1"), PageRequest.of(0, 5, Sort.by("id")));
+        Page<UserEntity> wildcard = userRepository.findAll(
+                UserSpecifications.nameStartsWith("User_"), PageRequest.of(0, 5));
+
+        // Assert
+        assertEquals(11, prefixed.getTotalElements());
+        assertEquals(5, prefixed.getNumberOfElements());
+        assertEquals(0, wildcard.getTotalElements());
+    }
+
+    private static void touchAssociations(UserEntity user) {
+        assertNotNull(user.getAddress().getGeo().getLat());
+        assertNotNull(user.getCompany().getName());
+    }
+
+    private static UserEntity user(int i) {
+        GeoEntity geo = new GeoEntity();
+        geo.setLat(1.0);
+        geo.setLng(2.0);
+
+        AddressEntity address = new AddressEntity();
+        address.setStreet("Street " + i);
+        address.setCity("City " + i);
+        address.setGeo(geo);
+
+        CompanyEntity company = new CompanyEntity();
+        company.setName("Company " + i);
+
+        UserEntity user = new UserEntity();
+        user.setName("User " + i);
+        user.setUsername("user" + i);
+        user.setEmail("user" + i + "@example.com");
+        user.setAddress(address);
+        user.setCompany(company);
+        return user;
+    }
+}
@@ -0,0 +1,191 @@
+package com.test.restful.service;
+
+import com.test.restful.config.CacheConfig;
+import com.test.restful.config.SingleFlight;
+import com.test.restful.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserListCacheTest {
+
+    private SingleFlight<Long, List<User>> userListLoads;
+    private UserListCache userListCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        userListLoads = new SingleFlight<>(CacheConfig.USER_LIST);
+        userListCache = new UserListCache(new ConcurrentMapCacheManager(CacheConfig.USER_LIST), userListLoads);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void getOrLoad_ShouldLoadOnceAndOrderById() {
+        // Act
+        List<User> first = userListCache.getOrLoad(() -> load(user(3L, "c"), user(1L, "a")));
+        List<User> second = userListCache.getOrLoad(() -> load(user(2L, "b")));
+
+        // Assert
+        assertEquals(1, loads.get());
+        assertEquals(Arrays.asList(1L, 3L), ids(first));
+        assertEquals(ids(first), ids(second));
+        assertThrows(UnsupportedOperationException.class, () -> first.add(user(4L, "d")));
+    }
+
+    @Test
+    void getOrLoad_WhenCallerChangesReturnedOrLoadedUser_ShouldKeepSnapshotUnchanged() {
+        // Arrange
+        User loadedUser = user(1L, "a");
+        User patchedUser = user(2L, "b");
+        List<User> first = userListCache.getOrLoad(() -> load(loadedUser));
+        userListCache.onUserChanged(UserChangedEvent.upserted(patchedUser));
+
+        // Act
+        first.get(0).setUsername("changed");
+        loadedUser.setUsername("changed");
+        patchedUser.setUsername("changed");
+        userListCache.getIfPresent().get(1).setUsername("changed");
+        List<User> second = userListCache.getOrLoad(() -> load());
+
+        // Assert
+        assertEquals(1, loads.get());
+        assertEquals(List.of("a", "b"), second.stream().map(User::getUsername).toList());
+    }
+
+    @Test
+    void onUserChanged_ShouldPatchOnlyTheAffectedRow() {
+        // Arrange
+        userListCache.getOrLoad(() -> load(user(1L, "a"), user(3L, "c")));
+
+        // Act
+        userListCache.onUserChanged(UserChangedEvent.upserted(user(2L, "b")));
+        userListCache.onUserChanged(UserChangedEvent.upserted(user(3L, "c2")));
+        userListCache.onUserChanged(UserChangedEvent.deleted(1L));
+        List<User> result = userListCache.getOrLoad(() -> load());
+
+        // Assert
+        assertEquals(1, loads.get());
+        assertEquals(Arrays.asList(2L, 3L), ids(result));
+        assertEquals("c2", result.get(1).getUsername());
+    }
+
+    @Test
+    void onUserChanged_WithImportedUser_ShouldLeaveSnapshotToChunkInvalidation() {
+        // Arrange
+        List<User> loaded = userListCache.getOrLoad(() -> load(user(1L, "a")));
+
+        // Act
+        userListCache.onUserChanged(UserChangedEvent.imported(user(2L, "b")));
+        List<User> beforeInvalidation = userListCache.getIfPresent();
+        userListCache.invalidate();
+        List<User> reloaded = userListCache.getOrLoad(() -> load(user(1L, "a"), user(2L, "b")));
+
+        // Assert
+        assertEquals(ids(loaded), ids(beforeInvalidation));
+        assertEquals(2, loads.get());
+        assertEquals(List.of(1L, 2L), ids(reloaded));
+    }
+
+    @Test
+    void revision_ShouldMoveForwardOnEveryChangeWithoutLoading() {
+        // Arrange
+        long initial = userListCache.revision();
+
+        // Act
+        userListCache.onUserChanged(UserChangedEvent.upserted(user(1L, "a")));
+        long afterUpsert = userListCache.revision();
+        userListCache.onUserChanged(UserChangedEvent.deleted(1L));
+        long afterDelete = userListCache.revision();
+        userListCache.invalidate();
+        long afterImport = userListCache.revision();
+
+        // Assert
+        assertTrue(initial < afterUpsert);
+        assertTrue(afterUpsert < afterDelete);
+        assertTrue(afterDelete < afterImport);
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void getOrLoad_WhenWriteRacesWithLoad_ShouldNotCacheStaleList() {
+        // Act
+        userListCache.getOrLoad(() -> {
+            userListCache.onUserChanged(UserChangedEvent.deleted(1L));
+            return load(user(1L, "a"));
+        });
+        List<User> result = userListCache.getOrLoad(() -> load(user(2L, "b")));
+
+        // Assert
+        assertEquals(2, loads.get());
+        assertEquals(List.of(2L), ids(result));
+    }
+
+    @Test
+    void getOrLoad_WithConcurrentMisses_ShouldShareOneLoadUnlessWriteIntervenes() throws Exception {
+        // Arrange
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<List<User>> slowLoad = () -> {
+            loading.countDown();
+            await(release);
+            return load(user(1L, "a"));
+        };
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Act
+            Future<List<User>> first = executor.submit(() -> userListCache.getOrLoad(slowLoad));
+            await(loading);
+            Future<List<User>> second = executor.submit(() -> userListCache.getOrLoad(slowLoad));
+            while (userListLoads.coalescedCount() == 0) {
+                Thread.sleep(1);
+            }
+            userListCache.onUserChanged(UserChangedEvent.upserted(user(2L, "b")));
+            List<User> afterWrite = userListCache.getOrLoad(() -> load(user(1L, "a"), user(2L, "b")));
+            release.countDown();
+
+            // Assert
+            assertEquals(ids(first.get(5, TimeUnit.SECONDS)), ids(second.get(5, TimeUnit.SECONDS)));
+            assertEquals(List.of(1L, 2L), ids(afterWrite));
+        }
+        assertEquals(2, loads.get());
+        assertEquals(List.of(1L, 2L), ids(userListCache.getOrLoad(() -> load())));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<User> load(User... users) {
+        loads.incrementAndGet();
+        return Arrays.asList(users);
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+
+    private static List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).toList();
+    }
+}
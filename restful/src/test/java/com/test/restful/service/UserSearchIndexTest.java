@@ -0,0 +1,117 @@
+package com.test.restful.service;
+
+import com.test.restful.model.Company;
+import com.test.restful.model.User;
+import com.test.restful.repository.UserJpaRepository;
+import com.test.restful.repository.UserSearchDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UserSearchIndexTest {
+
+    private UserJpaRepository userRepository;
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserJpaRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        index = new UserSearchIndex(userRepository, transactionManager);
+
+        when(userRepository.streamSearchDocuments()).thenReturn(Stream.of(
+                new UserSearchDocument(1L, "Leanne Graham", "Bret", "Multi-layered client-server neural-net", "harness real-time e-markets"),
+                new UserSearchDocument(2L, "Ervin Howell", "Antonette", "Proactive didactic contingency", "synergize scalable supply-chains"),
+                new UserSearchDocument(3L, "Clementine Bauch", "Samantha", "Face to face bifurcated interface", "e-enable strategic applications"),
+                new UserSearchDocument(4L, "Graham Client", "graham", null, null)));
+        index.rebuild();
+    }
+
+    @Test
+    void search_BeforeBuild_ShouldFindNothing() {
+        // Arrange
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        UserSearchIndex empty = new UserSearchIndex(userRepository, transactionManager);
+
+        // Act & Assert
+        assertTrue(empty.search("graham", 10).isEmpty());
+    }
+
+    @Test
+    void search_ShouldRankUsernameAndNameMatchesAboveCompanyMatches() {
+        // Act
+        List<UserSearchIndex.Hit> hits = index.search("Graham client", 10);
+
+        // Assert
+        // User 4 matches "graham" in name and username and "client" in name; user 1 matches
+        // "graham" in name and "client" in the catch phrase
+        assertEquals(List.of(4L, 1L), hits.stream().map(UserSearchIndex.Hit::userId).toList());
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+    }
+
+    @Test
+    void search_WithPrefix_ShouldMatchLongerTermsWithLowerScore() {
+        // Act
+        List<UserSearchIndex.Hit> prefix = index.search("synerg", 10);
+        List<UserSearchIndex.Hit> exact = index.search("synergize", 10);
+
+        // Assert
+        assertEquals(2L, prefix.get(0).userId());
+        assertTrue(prefix.get(0).score() < exact.get(0).score());
+    }
+
+    @Test
+    void search_ShouldHonourLimit() {
+        // Act
+        List<UserSearchIndex.Hit> hits = index.search("e", 1);
+
+        // Assert
+        assertEquals(1, hits.size());
+    }
+
+    @Test
+    void onUserChanged_ShouldReindexUpdatedUsersAndDropDeletedOnes() {
+        // Arrange
+        User updated = new User();
+        updated.setId(2L);
+        updated.setName("Ervin Howell");
+        updated.setUsername("Antonette");
+        Company company = new Company();
+        company.setCatchPhrase("Reactive holistic paradigm");
+        updated.setCompany(company);
+
+        // Act
+        index.onUserChanged(UserChangedEvent.upserted(updated));
+        index.onUserChanged(UserChangedEvent.deleted(3L));
+
+        // Assert
+        assertTrue(index.search("proactive", 10).isEmpty());
+        assertEquals(2L, index.search("holistic", 10).get(0).userId());
+        assertTrue(index.search("samantha", 10).isEmpty());
+    }
+
+    @Test
+    void rebuild_ShouldReplaceTheIndex() {
+        // Arrange
+        when(userRepository.streamSearchDocuments()).thenReturn(Stream.of(
+                new UserSearchDocument(9L, "Nicholas Runolfsdottir", "Maxime_Nienow", null, null)));
+
+        // Act
+        int indexed = index.rebuild();
+
+        // Assert
+        assertEquals(1, indexed);
+        assertTrue(index.search("graham", 10).isEmpty());
+        assertEquals(9L, index.search("maxime", 10).get(0).userId());
+    }
+}
@@ -1,25 +1,47 @@
 package com.test.restful.service;
 
+import com.test.restful.config.CacheConfig;
+import com.test.restful.config.SingleFlight;
 import com.test.restful.entity.UserEntity;
+import com.test.restful.exception.PreconditionFailedException;
 import com.test.restful.exception.ResourceNotFoundException;
 import com.test.restful.exception.UserAlreadyExistsException;
 import com.test.restful.mapper.UserMapper;
 import com.test.restful.model.User;
+import com.test.restful.model.UserBatch;
+import com.test.restful.repository.UserDeletionTarget;
 import com.test.restful.repository.UserJpaRepository;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +53,21 @@ public class UserServiceTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private UserListCache userListCache;
+
+    @Mock
+    private UserUniquenessGuard uniquenessGuard;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Spy
+    private SingleFlight<Long, Optional<User>> userLoads = new SingleFlight<>(CacheConfig.USERS);
+
     @InjectMocks
     private UserService userService;
 
@@ -58,6 +95,8 @@ public class UserServiceTest {
         List<UserEntity> userEntities = Arrays.asList(userEntity);
         when(userRepository.findAll()).thenReturn(userEntities);
         when(userMapper.toDto(any(UserEntity.class))).thenReturn(user);
+        when(userListCache.getOrLoad(any())).thenAnswer(invocation ->
+                invocation.<Supplier<List<User>>>getArgument(0).get());
 
         // Act
         List<User> result = userService.getAllUsers();
@@ -72,6 +111,8 @@ public class UserServiceTest {
     @Test
     void getUserById_WhenUserExists_ShouldReturnUser() {
         // Arrange
+        ConcurrentMapCache cache = new ConcurrentMapCache(CacheConfig.USERS);
+        when(cacheManager.getCache(CacheConfig.USERS)).thenReturn(cache);
         when(userRepository.findById(1L)).thenReturn(Optional.of(userEntity));
         when(userMapper.toDto(userEntity)).thenReturn(user);
 
@@ -81,12 +122,50 @@ public class UserServiceTest {
         // Assert
         assertTrue(result.isPresent());
         assertEquals("testuser", result.get().getUsername());
+        assertSame(user, cache.get(1L, User.class));
         verify(userRepository).findById(1L);
     }
 
+    @Test
+    void getUserById_WhenCached_ShouldNotQuery() {
+        // Arrange
+        ConcurrentMapCache cache = new ConcurrentMapCache(CacheConfig.USERS);
+        cache.put(1L, user);
+        when(cacheManager.getCache(CacheConfig.USERS)).thenReturn(cache);
+
+        // Act
+        Optional<User> result = userService.getUserById(1L);
+
+        // Assert
+        assertEquals(Optional.of(user), result);
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void getUserById_WhenChangeCommitsWhileLoading_ShouldReturnButNotCacheLoadedUser() {
+        // Arrange
+        ConcurrentMapCache cache = new ConcurrentMapCache(CacheConfig.USERS);
+        when(cacheManager.getCache(CacheConfig.USERS)).thenReturn(cache);
+        when(userRepository.findById(1L)).thenAnswer(invocation -> {
+            // A delete commits after the row was read: its cache update forgets the load
+            userLoads.forget(1L);
+            return Optional.of(userEntity);
+        });
+        when(userMapper.toDto(userEntity)).thenReturn(user);
+
+        // Act
+        Optional<User> result = userService.getUserById(1L);
+
+        // Assert
+        assertEquals(Optional.of(user), result);
+        assertNull(cache.get(1L));
+    }
+
     @Test
     void getUserById_WhenUserDoesNotExist_ShouldReturnEmpty() {
         // Arrange
+        ConcurrentMapCache cache = new ConcurrentMapCache(CacheConfig.USERS);
+        when(cacheManager.getCache(CacheConfig.USERS)).thenReturn(cache);
         when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         // Act
@@ -97,13 +176,120 @@ public class UserServiceTest {
         verify(userRepository).findById(1L);
     }
 
+    @Test
+    void getUserById_WithConcurrentMisses_ShouldQueryOnce() throws Exception {
+        // Arrange
+        when(cacheManager.getCache(CacheConfig.USERS)).thenReturn(new ConcurrentMapCache(CacheConfig.USERS));
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.findById(1L)).thenAnswer(invocation -> {
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return Optional.of(userEntity);
+        });
+        when(userMapper.toDto(userEntity)).thenReturn(user);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Act
+            List<Future<Optional<User>>> results = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                results.add(executor.submit(() -> userService.getUserById(1L)));
+            }
+            while (userLoads.coalescedCount() < 9) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            // Assert
+            for (Future<Optional<User>> result : results) {
+                assertEquals(Optional.of(user), result.get(5, TimeUnit.SECONDS));
+            }
+        }
+        verify(userRepository, times(1)).findById(1L);
+        verify(userMapper, times(1)).toDto(userEntity);
+    }
+
+    @Test
+    void getUsersByIds_ShouldLoadOnlyCacheMissesInOneQueryAndKeepRequestOrder() {
+        // Arrange
+        ConcurrentMapCache cache = new ConcurrentMapCache(CacheConfig.USERS);
+        User cachedUser = new User();
+        cachedUser.setId(2L);
+        cache.put(2L, cachedUser);
+        when(cacheManager.getCache(CacheConfig.USERS)).thenReturn(cache);
+        when(userRepository.findAllById(List.of(3L, 1L))).thenReturn(List.of(userEntity));
+        when(userMapper.toDto(userEntity)).thenReturn(user);
+
+        // Act
+        UserBatch<User> result = userService.getUsersByIds(new LinkedHashSet<>(List.of(3L, 2L, 1L)));
+
+        // Assert
+        assertEquals(List.of(2L, 1L), result.getUsers().stream().map(User::getId).toList());
+        assertEquals(List.of(3L), result.getNotFound());
+        assertSame(user, cache.get(1L, User.class));
+        verify(userRepository).findAllById(List.of(3L, 1L));
+    }
+
+    @Test
+    void getUsersByIds_WhenChangeCommitsWhileLoading_ShouldReturnButNotCacheLoadedUser() {
+        // Arrange
+        ConcurrentMapCache cache = new ConcurrentMapCache(CacheConfig.USERS);
+        when(cacheManager.getCache(CacheConfig.USERS)).thenReturn(cache);
+        when(userRepository.findAllById(List.of(1L))).thenAnswer(invocation -> {
+            // A delete commits after the row was read: its cache update forgets the load
+            userLoads.forget(1L);
+            return List.of(userEntity);
+        });
+        when(userMapper.toDto(userEntity)).thenReturn(user);
+
+        // Act
+        UserBatch<User> result = userService.getUsersByIds(List.of(1L));
+
+        // Assert
+        assertEquals(List.of(user), result.getUsers());
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void getUsersByIds_WhenAllCached_ShouldNotQuery() {
+        // Arrange
+        ConcurrentMapCache cache = new ConcurrentMapCache(CacheConfig.USERS);
+        cache.put(1L, user);
+        when(cacheManager.getCache(CacheConfig.USERS)).thenReturn(cache);
+
+        // Act
+        UserBatch<User> result = userService.getUsersByIds(List.of(1L));
+
+        // Assert
+        assertEquals(List.of(user), result.getUsers());
+        assertTrue(result.getNotFound().isEmpty());
+        verify(userRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void isUsernameTaken_WhenFilterRulesItOut_ShouldSkipDatabase() {
+        // Arrange
+        when(uniquenessGuard.mightBeTaken(UserUniquenessGuard.Field.USERNAME, "fresh")).thenReturn(false);
+
+        // Act & Assert
+        assertFalse(userService.isUsernameTaken("fresh"));
+        verify(userRepository, never()).existsByUsernameKey(anyString());
+    }
+
+    @Test
+    void isEmailTaken_WhenFilterSaysMaybe_ShouldAskDatabaseAndReportOutcome() {
+        // Arrange
+        when(uniquenessGuard.mightBeTaken(UserUniquenessGuard.Field.EMAIL, "test@example.com")).thenReturn(true);
+        when(userRepository.existsByEmailKey("test@example.com")).thenReturn(false);
+
+        // Act & Assert
+        assertFalse(userService.isEmailTaken("test@example.com"));
+        verify(uniquenessGuard).recordConfirmation(UserUniquenessGuard.Field.EMAIL, false);
+    }
+
     @Test
     void createUser_WhenUsernameAndEmailAreUnique_ShouldCreateUser() {
         // Arrange
-        when(userRepository.existsByUsername(anyString())).thenReturn(false);
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
         when(userMapper.toEntity(any(User.class))).thenReturn(userEntity);
-        when(userRepository.save(any(UserEntity.class))).thenReturn(userEntity);
+        when(userRepository.saveAndFlush(any(UserEntity.class))).thenReturn(userEntity);
         when(userMapper.toDto(any(UserEntity.class))).thenReturn(user);
 
         // Act
@@ -112,35 +298,54 @@ public class UserServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals("testuser", result.getUsername());
-        verify(userRepository).save(userEntity);
+        verify(userRepository).saveAndFlush(userEntity);
+        verify(userRepository, never()).existsByUsernameKey(anyString());
+        verify(userRepository, never()).existsByEmailKey(anyString());
     }
 
     @Test
     void createUser_WhenUsernameExists_ShouldThrowException() {
         // Arrange
-        when(userRepository.existsByUsername("testuser")).thenReturn(true);
+        when(userMapper.toEntity(any(User.class))).thenReturn(userEntity);
+        when(userRepository.saveAndFlush(any(UserEntity.class)))
+                .thenThrow(uniqueViolation("PUBLIC.UK_USERS_USERNAME_INDEX_4"));
 
         // Act & Assert
-        assertThrows(UserAlreadyExistsException.class, () -> userService.createUser(user));
-        verify(userRepository, never()).save(any(UserEntity.class));
+        UserAlreadyExistsException exception =
+                assertThrows(UserAlreadyExistsException.class, () -> userService.createUser(user));
+        assertEquals("Username already exists: testuser", exception.getMessage());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
     }
 
     @Test
     void createUser_WhenEmailExists_ShouldThrowException() {
         // Arrange
-        when(userRepository.existsByUsername(anyString())).thenReturn(false);
-        when(userRepository.existsByEmail("test@example.com")).thenReturn(true);
+        when(userMapper.toEntity(any(User.class))).thenReturn(userEntity);
+        when(userRepository.saveAndFlush(any(UserEntity.class)))
+                .thenThrow(uniqueViolation("PUBLIC.UK_USERS_EMAIL_INDEX_4"));
 
         // Act & Assert
-        assertThrows(UserAlreadyExistsException.class, () -> userService.createUser(user));
-        verify(userRepository, never()).save(any(UserEntity.class));
+        UserAlreadyExistsException exception =
+                assertThrows(UserAlreadyExistsException.class, () -> userService.createUser(user));
+        assertEquals("Email already exists: test@example.com", exception.getMessage());
+    }
+
+    @Test
+    void createUser_WhenOtherConstraintFails_ShouldRethrow() {
+        // Arrange
+        when(userMapper.toEntity(any(User.class))).thenReturn(userEntity);
+        when(userRepository.saveAndFlush(any(UserEntity.class)))
+                .thenThrow(uniqueViolation("FK_SOMETHING_ELSE"));
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class, () -> userService.createUser(user));
     }
 
     @Test
     void updateUser_WhenUserExists_ShouldUpdateUser() {
         // Arrange
         when(userRepository.findById(1L)).thenReturn(Optional.of(userEntity));
-        when(userRepository.save(any(UserEntity.class))).thenReturn(userEntity);
+        when(userRepository.saveAndFlush(any(UserEntity.class))).thenReturn(userEntity);
         when(userMapper.toDto(any(UserEntity.class))).thenReturn(user);
 
         // Act
@@ -149,7 +354,34 @@ public class UserServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals("testuser", result.getUsername());
-        verify(userRepository).save(userEntity);
+        verify(userRepository).saveAndFlush(userEntity);
+    }
+
+    @Test
+    void updateUser_WhenVersionDiffers_ShouldThrowPreconditionFailed() {
+        // Arrange
+        userEntity.setVersion(5L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(userEntity));
+
+        // Act & Assert
+        assertThrows(PreconditionFailedException.class, () -> userService.updateUser(1L, user, Set.of(4L)));
+        verify(userRepository, never()).saveAndFlush(any(UserEntity.class));
+    }
+
+    @Test
+    void updateUser_WhenAnyExpectedVersionMatches_ShouldUpdate() {
+        // Arrange
+        userEntity.setVersion(5L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(userEntity));
+        when(userRepository.saveAndFlush(userEntity)).thenReturn(userEntity);
+        when(userMapper.toDto(userEntity)).thenReturn(user);
+
+        // Act
+        User result = userService.updateUser(1L, user, Set.of(4L, 5L));
+
+        // Assert
+        assertEquals("testuser", result.getUsername());
+        verify(userRepository).saveAndFlush(userEntity);
     }
 
     @Test
@@ -165,27 +397,72 @@ public class UserServiceTest {
     @Test
     void deleteUser_WhenUserExists_ShouldReturnTrue() {
         // Arrange
-        when(userRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(userRepository).deleteById(1L);
+        when(userRepository.findDeletionTargets(List.of(1L))).thenReturn(List.of(
+                new UserDeletionTarget(1L, "testuser", "test@example.com", 10L, 20L, 30L)));
+        when(userRepository.deleteUsersById(List.of(1L))).thenReturn(List.of(1L));
 
         // Act
         boolean result = userService.deleteUser(1L);
 
         // Assert
         assertTrue(result);
-        verify(userRepository).deleteById(1L);
+        verify(userRepository).deleteAddressesByIdIn(List.of(10L));
+        verify(userRepository).deleteGeosByIdIn(List.of(20L));
+        verify(userRepository).deleteCompaniesByIdIn(List.of(30L));
+        verify(userRepository, never()).deleteById(anyLong());
     }
 
     @Test
     void deleteUser_WhenUserDoesNotExist_ShouldReturnFalse() {
         // Arrange
-        when(userRepository.existsById(anyLong())).thenReturn(false);
+        when(userRepository.findDeletionTargets(List.of(1L))).thenReturn(List.of());
 
         // Act
         boolean result = userService.deleteUser(1L);
 
         // Assert
         assertFalse(result);
-        verify(userRepository, never()).deleteById(anyLong());
+        verify(userRepository, never()).deleteUsersById(any());
+    }
+
+    @Test
+    void deleteUser_WhenDeletedConcurrently_ShouldReturnFalseFromAffectedRows() {
+        // Arrange
+        when(userRepository.findDeletionTargets(List.of(1L))).thenReturn(List.of(
+                new UserDeletionTarget(1L, "testuser", "test@example.com", null, null, null)));
+        when(userRepository.deleteUsersById(List.of(1L))).thenReturn(List.of());
+
+        // Act
+        boolean result = userService.deleteUser(1L);
+
+        // Assert
+        assertFalse(result);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void deleteUsers_WhenSomeDeletedConcurrently_ShouldReportAndPublishOnlyRowsItDeleted() {
+        // Arrange
+        when(userRepository.findDeletionTargets(List.of(1L, 2L))).thenReturn(List.of(
+                new UserDeletionTarget(1L, "testuser", "test@example.com", 10L, 20L, 30L),
+                new UserDeletionTarget(2L, "other", "other@example.com", 11L, 21L, 31L)));
+        when(userRepository.deleteUsersById(List.of(1L, 2L))).thenReturn(List.of(2L));
+
+        // Act
+        List<Long> result = userService.deleteUsers(List.of(1L, 2L));
+
+        // Assert
+        assertEquals(List.of(2L), result);
+        verify(userRepository).deleteAddressesByIdIn(List.of(11L));
+        verify(userRepository).deleteGeosByIdIn(List.of(21L));
+        verify(userRepository).deleteCompaniesByIdIn(List.of(31L));
+        verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+        verify(eventPublisher).publishEvent(argThat((Object event) ->
+                event instanceof UserChangedEvent changed && changed.getUserId().equals(2L)));
+    }
+
+    private static DataIntegrityViolationException uniqueViolation(String constraintName) {
+        return new DataIntegrityViolationException("constraint violation",
+                new ConstraintViolationException("constraint violation", new SQLException(), constraintName));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,113 @@
+package com.test.restful.service;
+
+import com.test.restful.model.Address;
+import com.test.restful.model.Geo;
+import com.test.restful.model.User;
+import com.test.restful.repository.UserJpaRepository;
+import com.test.restful.repository.UserLocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UserSpatialIndexTest {
+
+    private UserJpaRepository userRepository;
+    private UserSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserJpaRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        index = new UserSpatialIndex(userRepository, transactionManager, 1.0);
+    }
+
+    @Test
+    void findNear_BeforeBuild_ShouldFindNothing() {
+        // Act & Assert
+        assertTrue(index.findNear(0, 0, 1000, 10).isEmpty());
+    }
+
+    @Test
+    void findNear_ShouldMatchBruteForceIncludingPolesAndAntimeridian() {
+        // Arrange
+        Random random = new Random(42);
+        List<UserLocation> locations = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            locations.add(new UserLocation(id, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+        }
+        when(userRepository.streamLocations()).thenReturn(locations.stream());
+        index.rebuild();
+
+        double[][] queries = {{0, 0}, {51.5, -0.1}, {-33.9, 151.2}, {10, 179.9}, {-5, -179.5}, {89.5, 30}, {-88, -120}};
+        for (double[] query : queries) {
+            for (double radiusKm : new double[]{50, 500, 3000}) {
+                // Act
+                List<UserSpatialIndex.Hit> hits = index.findNear(query[0], query[1], radiusKm, 20);
+
+                // Assert
+                List<Long> expected = locations.stream()
+                        .filter(location -> distanceKm(query[0], query[1], location.lat(), location.lng()) <= radiusKm)
+                        .sorted(Comparator.comparingDouble(
+                                (UserLocation location) -> distanceKm(query[0], query[1], location.lat(), location.lng()))
+                                .thenComparing(UserLocation::id))
+                        .limit(20)
+                        .map(UserLocation::id)
+                        .toList();
+                assertEquals(expected, hits.stream().map(UserSpatialIndex.Hit::userId).toList(),
+                        () -> "Query " + query[0] + ", " + query[1] + " within " + radiusKm + " km");
+            }
+        }
+    }
+
+    @Test
+    void onUserChanged_ShouldMoveUpdatedUsersAndDropDeletedOnes() {
+        // Arrange
+        when(userRepository.streamLocations()).thenReturn(Stream.of(
+                new UserLocation(1L, 48.8566, 2.3522),
+                new UserLocation(2L, 48.8600, 2.3500)));
+        index.rebuild();
+
+        // Act
+        index.onUserChanged(UserChangedEvent.upserted(userAt(1L, "40.7128", "-74.0060")));
+        index.onUserChanged(UserChangedEvent.deleted(2L));
+
+        // Assert
+        assertTrue(index.findNear(48.8566, 2.3522, 10, 10).isEmpty());
+        List<UserSpatialIndex.Hit> hits = index.findNear(40.7, -74.0, 10, 10);
+        assertEquals(1L, hits.get(0).userId());
+        assertTrue(hits.get(0).distanceKm() < 2);
+    }
+
+    private static User userAt(Long id, String lat, String lng) {
+        Geo geo = new Geo();
+        geo.setLat(lat);
+        geo.setLng(lng);
+        Address address = new Address();
+        address.setGeo(geo);
+        User user = new User();
+        user.setId(id);
+        user.setAddress(address);
+        return user;
+    }
+
+    private static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double h = Math.pow(Math.sin(dLat / 2), 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.pow(Math.sin(dLng / 2), 2);
+        return 2 * UserSpatialIndex.EARTH_RADIUS_KM * Math.asin(Math.sqrt(h));
+    }
+}
@@ -0,0 +1,152 @@
+package com.test.restful.service;
+
+import com.test.restful.model.User;
+import com.test.restful.repository.UserIdentity;
+import com.test.restful.repository.UserJpaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UserUniquenessGuardTest {
+
+    private UserJpaRepository userRepository;
+    private MeterRegistry meterRegistry;
+    private List<Runnable> scheduled;
+    private UserUniquenessGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserJpaRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        meterRegistry = new SimpleMeterRegistry();
+        scheduled = new ArrayList<>();
+        guard = new UserUniquenessGuard(userRepository, transactionManager, meterRegistry, scheduled::add, 1000, 0.01);
+    }
+
+    @Test
+    void mightBeTaken_BeforeWarmUp_ShouldAlwaysAskTheDatabase() {
+        // Act & Assert
+        assertTrue(guard.mightBeTaken(UserUniquenessGuard.Field.USERNAME, "anyone"));
+    }
+
+    @Test
+    void mightBeTaken_AfterWarmUp_ShouldNeverMissExistingValues() {
+        // Arrange
+        when(userRepository.count()).thenReturn(500L);
+        when(userRepository.streamIdentities()).thenReturn(identities(500));
+
+        // Act
+        guard.warmUp();
+
+        // Assert
+        for (int i = 0; i < 500; i++) {
+            assertTrue(guard.mightBeTaken(UserUniquenessGuard.Field.USERNAME, "user" + i));
+            assertTrue(guard.mightBeTaken(UserUniquenessGuard.Field.EMAIL, "user" + i + "@example.com"));
+        }
+    }
+
+    @Test
+    void mightBeTaken_ForUnknownValues_ShouldStayNearConfiguredFalsePositiveRate() {
+        // Arrange
+        when(userRepository.count()).thenReturn(1000L);
+        when(userRepository.streamIdentities()).thenReturn(identities(1000));
+        guard.warmUp();
+
+        // Act
+        int maybes = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (guard.mightBeTaken(UserUniquenessGuard.Field.USERNAME, "stranger" + i)) {
+                maybes++;
+                guard.recordConfirmation(UserUniquenessGuard.Field.USERNAME, false);
+            }
+        }
+
+        // Assert: sized for 2000 at 1%, holding 1000
+        assertTrue(maybes < 300, "Too many false positives: " + maybes);
+        double observed = meterRegistry.get("users.uniqueness.filter.false.positive.rate")
+                .tag("field", "username").gauge().value();
+        assertEquals(maybes / 10000.0, observed, 1e-9);
+    }
+
+    @Test
+    void onUserChanged_ShouldAddCommittedUsers() {
+        // Arrange
+        when(userRepository.streamIdentities()).thenReturn(Stream.empty());
+        guard.warmUp();
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("newcomer");
+        user.setEmail("newcomer@example.com");
+
+        // Act
+        guard.onUserChanged(UserChangedEvent.upserted(user));
+
+        // Assert
+        assertTrue(guard.mightBeTaken(UserUniquenessGuard.Field.USERNAME, "newcomer"));
+        assertTrue(guard.mightBeTaken(UserUniquenessGuard.Field.EMAIL, "newcomer@example.com"));
+    }
+
+    @Test
+    void onUserChanged_DuringFirstBuild_ShouldReachTheBuiltFilters() {
+        // Arrange: the user commits after the stream has passed its row
+        when(userRepository.streamIdentities()).thenReturn(identities(10)
+                .onClose(() -> guard.onUserChanged(UserChangedEvent.upserted(user(1L, "latecomer")))));
+
+        // Act
+        guard.warmUp();
+
+        // Assert
+        assertTrue(guard.mightBeTaken(UserUniquenessGuard.Field.USERNAME, "latecomer"));
+        assertTrue(guard.mightBeTaken(UserUniquenessGuard.Field.EMAIL, "latecomer@example.com"));
+    }
+
+    @Test
+    void onUserChanged_WhenCapacityExceeded_ShouldScheduleOneRebuildOnExecutor() {
+        // Arrange
+        when(userRepository.streamIdentities()).thenReturn(Stream.empty()).thenReturn(identities(1000));
+        guard.warmUp();
+
+        // Act
+        for (int i = 0; i < 1005; i++) {
+            guard.onUserChanged(UserChangedEvent.upserted(user((long) i, "user" + i)));
+        }
+
+        // Assert: nothing rebuilt on the caller's thread, a single rebuild queued
+        assertEquals(1, scheduled.size());
+        verify(userRepository, times(1)).streamIdentities();
+        when(userRepository.count()).thenReturn(1005L);
+        scheduled.get(0).run();
+        verify(userRepository, times(2)).streamIdentities();
+        guard.onUserChanged(UserChangedEvent.upserted(user(2000L, "user2000")));
+        assertEquals(1, scheduled.size());
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        return user;
+    }
+
+    private static Stream<UserIdentity> identities(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new UserIdentity("user" + i, "user" + i + "@example.com"));
+    }
+}